@@ -0,0 +1,49 @@
+package com.sample.api;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * SampleApiState
+ *
+ * Starts the application against the in memory database once per benchmark trial.
+ *
+ * @author Anthony DePalma
+ */
+@State(Scope.Benchmark)
+public class SampleApiState {
+
+	// the application context
+	private ConfigurableApplicationContext context;
+
+	@Setup(Level.Trial)
+	public void start() {
+		context = new SpringApplicationBuilder(SampleApi.class)
+				.properties(
+						"server.port=0",
+						"logging.level.root=WARN",
+						"logging.level.com.sample.api=WARN")
+				.run();
+	}
+
+	@TearDown(Level.Trial)
+	public void stop() {
+		context.close();
+	}
+
+	/**
+	 * Returns the bean of the given type.
+	 *
+	 * @param type
+	 * @return T
+	 */
+	public <T> T getBean(Class<T> type) {
+		return context.getBean(type);
+	}
+
+}
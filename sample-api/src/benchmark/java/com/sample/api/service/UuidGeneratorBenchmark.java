@@ -0,0 +1,143 @@
+package com.sample.api.service;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * UuidGeneratorBenchmark
+ *
+ * Measures the insert throughput of each id generator into a primary key index already holding the given number of rows,
+ * and the throughput of generating ids from several threads at once.
+ *
+ * @author Anthony DePalma
+ */
+@Fork(1)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class UuidGeneratorBenchmark {
+
+	// the number of rows inserted in each batch
+	private static final int BATCH_SIZE = 1000;
+
+	/**
+	 * InsertState
+	 *
+	 * A table seeded with ids from the generator being measured.
+	 */
+	@State(Scope.Benchmark)
+	public static class InsertState {
+
+		// the generator
+		@Param({ "TIME_ORDERED", "RANDOM" })
+		public UuidGenerator generator;
+
+		// the number of seeded rows
+		@Param("10000000")
+		public int rows;
+
+		// the connection
+		private Connection connection;
+
+		@Setup(Level.Trial)
+		public void seed() throws SQLException {
+			JdbcDataSource dataSource = new JdbcDataSource();
+			dataSource.setURL("jdbc:h2:mem:uuid;DB_CLOSE_DELAY=-1");
+			connection = dataSource.getConnection();
+			connection.setAutoCommit(false);
+
+			try(Statement statement = connection.createStatement())
+			{
+				statement.execute("DROP TABLE IF EXISTS entity");
+				statement.execute("CREATE TABLE entity (id UUID PRIMARY KEY, time_created TIMESTAMP NOT NULL)");
+			}
+
+			for(int i = 0; i < rows; i += BATCH_SIZE)
+				insert();
+		}
+
+		@TearDown(Level.Trial)
+		public void close() throws SQLException {
+			try(Statement statement = connection.createStatement())
+			{
+				statement.execute("DROP TABLE entity");
+			}
+
+			connection.close();
+		}
+
+		/**
+		 * Inserts and commits a batch of rows.
+		 *
+		 * @throws SQLException
+		 */
+		public void insert() throws SQLException {
+			Timestamp now = Timestamp.from(Instant.now());
+
+			try(PreparedStatement statement = connection.prepareStatement("INSERT INTO entity (id, time_created) VALUES (?, ?)"))
+			{
+				for(int i = 0; i < BATCH_SIZE; i++) {
+					statement.setObject(1, generator.generate());
+					statement.setTimestamp(2, now);
+					statement.addBatch();
+				}
+
+				statement.executeBatch();
+			}
+
+			connection.commit();
+		}
+
+	}
+
+	/**
+	 * GeneratorState
+	 *
+	 * The generator being measured.
+	 */
+	@State(Scope.Benchmark)
+	public static class GeneratorState {
+
+		// the generator
+		@Param({ "TIME_ORDERED", "SECURE_RANDOM", "RANDOM" })
+		public UuidGenerator generator;
+
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BATCH_SIZE)
+	public void insert(InsertState state) throws SQLException {
+		state.insert();
+	}
+
+	@Benchmark
+	@Threads(4)
+	public UUID generate(GeneratorState state) {
+		return state.generator.generate();
+	}
+
+}
@@ -0,0 +1,71 @@
+package com.sample.api.service.auth;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.ServletException;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import com.google.common.net.HttpHeaders;
+
+/**
+ * AuthFilterBenchmark
+ *
+ * Measures the whole filter for an authenticated request, including the mock servlet objects it is given.
+ *
+ * @author Anthony DePalma
+ */
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class AuthFilterBenchmark {
+
+	@Benchmark
+	public int filterFreshToken(AuthState state) throws IOException, ServletException {
+		return filter(state.authFilter, state.freshToken);
+	}
+
+	@Benchmark
+	public int filterValidatedToken(AuthState state) throws IOException, ServletException {
+		return filter(state.authFilter, state.validatedToken);
+	}
+
+	/**
+	 * Filters a request with the given token and returns the response status.
+	 *
+	 * @param authFilter
+	 * @param token
+	 * @return int
+	 * @throws IOException
+	 * @throws ServletException
+	 */
+	private static int filter(AuthFilter authFilter, String token) throws IOException, ServletException {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/user");
+		request.addHeader(HttpHeaders.AUTHORIZATION, "Bearer " + token);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		try
+		{
+			authFilter.doFilter(request, response, new MockFilterChain());
+			return response.getStatus();
+		}
+		finally
+		{
+			SecurityContextHolder.clearContext();
+		}
+	}
+
+}
@@ -0,0 +1,62 @@
+package com.sample.api.service.auth;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.core.Authentication;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jws;
+
+/**
+ * AuthServiceBenchmark
+ *
+ * Measures each step AuthFilter takes for an authenticated request.
+ *
+ * @author Anthony DePalma
+ */
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class AuthServiceBenchmark {
+
+	@Benchmark
+	public Jws<Claims> parseToken(AuthState state) {
+		return state.authService.parseToken(state.freshToken);
+	}
+
+	@Benchmark
+	public Jws<Claims> verifyToken(AuthState state) {
+		return state.keyring.parse(state.freshToken);
+	}
+
+	@Benchmark
+	public Optional<Boolean> validateFreshToken(AuthState state) {
+		return state.authService.validateToken(state.freshJws);
+	}
+
+	@Benchmark
+	public Optional<Boolean> validateToken(AuthState state) {
+		return state.authService.validateToken(state.validatedJws);
+	}
+
+	@Benchmark
+	public Authentication getAuthentication(AuthState state) {
+		return state.authService.getAuthentication(state.freshJws);
+	}
+
+	@Benchmark
+	public String renewToken(AuthState state) {
+		return state.authService.renewToken(state.freshJws, false);
+	}
+
+}
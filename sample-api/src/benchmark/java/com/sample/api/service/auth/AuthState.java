@@ -0,0 +1,72 @@
+package com.sample.api.service.auth;
+
+import java.time.Instant;
+import java.util.Date;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.sample.api.SampleApiProperties;
+import com.sample.api.SampleApiState;
+import com.sample.api.service.user.User;
+import com.sample.api.service.user.UserAuthority;
+import com.sample.api.service.user.UserRequest;
+import com.sample.api.service.user.UserService;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jws;
+
+/**
+ * AuthState
+ *
+ * Holds the auth beans and the tokens of a single user shared by the auth benchmarks.
+ * A fresh token is within its validation interval, while a validated token is past it and checks the user credential.
+ *
+ * @author Anthony DePalma
+ */
+@State(Scope.Benchmark)
+public class AuthState {
+
+	// beans
+	AuthService authService;
+	AuthKeyring keyring;
+	AuthFilter authFilter;
+
+	// the fresh token
+	String freshToken;
+	Jws<Claims> freshJws;
+
+	// the token due for validation
+	String validatedToken;
+	Jws<Claims> validatedJws;
+
+	@Setup(Level.Trial)
+	public void setup(SampleApiState app) {
+		authService = app.getBean(AuthService.class);
+		keyring = app.getBean(AuthKeyring.class);
+		authFilter = app.getBean(AuthFilter.class);
+
+		SampleApiProperties properties = app.getBean(SampleApiProperties.class);
+		User user = app.getBean(UserService.class).createUser(new UserRequest("benchmark@email.com", "password"), UserAuthority.ROLE_USER);
+		AuthClaim claim = new AuthClaim(user, false);
+		Instant now = Instant.now();
+
+		freshToken = keyring.builder()
+				.setIssuedAt(Date.from(now))
+				.setExpiration(Date.from(now.plusSeconds(properties.getJwtExpShort())))
+				.claim(AuthClaim.KEY, claim)
+				.compact();
+
+		validatedToken = keyring.builder()
+				.setIssuedAt(Date.from(now.minusSeconds(properties.getJwtValidateInterval() + 1)))
+				.setExpiration(Date.from(now.plusSeconds(properties.getJwtExpShort())))
+				.claim(AuthClaim.KEY, claim)
+				.compact();
+
+		freshJws = authService.parseToken(freshToken);
+		validatedJws = authService.parseToken(validatedToken);
+	}
+
+}
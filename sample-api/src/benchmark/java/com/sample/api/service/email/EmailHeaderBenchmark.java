@@ -0,0 +1,97 @@
+package com.sample.api.service.email;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.boot.logging.LogLevel;
+import org.springframework.boot.logging.LoggingSystem;
+import org.springframework.context.support.StaticMessageSource;
+
+import com.sample.api.service.user.User;
+
+/**
+ * EmailHeaderBenchmark
+ *
+ * Measures rendering the eight headers of an email, once by reading and substituting each value on every call
+ * and once through the compiled header templates.
+ *
+ * @author Anthony DePalma
+ */
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class EmailHeaderBenchmark {
+
+	// the headers of an email
+	private static final String[] PROPERTIES = {
+			"toAddress", "ccAddress", "bccAddress", "fromAddress", "fromAlias", "replyToAddress", "replyToAlias", "subject" };
+
+	/**
+	 * HeaderState
+	 *
+	 * A message source holding the headers of the verify template, some of them with variables.
+	 */
+	@State(Scope.Benchmark)
+	public static class HeaderState {
+
+		// properties
+		private final Locale locale = Locale.ENGLISH;
+		private StaticMessageSource messageSource;
+		private EmailHeaderTemplates headerTemplates;
+		private Map<String, Object> context;
+
+		@Setup(Level.Trial)
+		public void setup() {
+
+			// the benchmark runs without the application, so quiet the debug logging of the libraries
+			LoggingSystem.get(getClass().getClassLoader()).setLogLevel(LoggingSystem.ROOT_LOGGER_NAME, LogLevel.WARN);
+
+			messageSource = new StaticMessageSource();
+			messageSource.addMessage("emailTemplate.verifyUser.toAddress", locale, "${user.email}");
+			messageSource.addMessage("emailTemplate.verifyUser.ccAddress", locale, "sample@email.com");
+			messageSource.addMessage("emailTemplate.verifyUser.bccAddress", locale, "sample@email.com");
+			messageSource.addMessage("emailTemplate.verifyUser.fromAddress", locale, "sample@email.com");
+			messageSource.addMessage("emailTemplate.verifyUser.fromAlias", locale, "Sample Alias");
+			messageSource.addMessage("emailTemplate.verifyUser.replyToAddress", locale, "reply@email.com");
+			messageSource.addMessage("emailTemplate.verifyUser.replyToAlias", locale, "Reply Alias");
+			messageSource.addMessage("emailTemplate.verifyUser.subject", locale, "Please verify ${user.email}");
+			headerTemplates = new EmailHeaderTemplates(messageSource);
+
+			User user = new User();
+			user.setEmail("user@email.com");
+			context = Map.of("user", user);
+		}
+
+	}
+
+	@Benchmark
+	public void substitutor(HeaderState state, Blackhole blackhole) {
+		for(String property : PROPERTIES) {
+			String key = String.format("emailTemplate.%s.%s", EmailTemplate.VERIFY_USER.toLowerCamel(), property);
+			String value = state.messageSource.getMessage(key, null, null, state.locale);
+			blackhole.consume(EmailHeaderTemplate.substitute(value, state.context));
+		}
+	}
+
+	@Benchmark
+	public void compiled(HeaderState state, Blackhole blackhole) {
+		for(String property : PROPERTIES)
+			blackhole.consume(state.headerTemplates.render(EmailTemplate.VERIFY_USER, property, state.context, state.locale));
+	}
+
+}
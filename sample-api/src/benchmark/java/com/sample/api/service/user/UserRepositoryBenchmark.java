@@ -0,0 +1,74 @@
+package com.sample.api.service.user;
+
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.sample.api.SampleApiState;
+
+/**
+ * UserRepositoryBenchmark
+ *
+ * Compares finding a user by the indexed normalized email against the previous case insensitive comparison on a seeded table.
+ *
+ * @author Anthony DePalma
+ */
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class UserRepositoryBenchmark {
+
+	// the number of seeded users
+	@Param("1000000")
+	public int users;
+
+	// the repository
+	private UserRepository userRepository;
+
+	@Setup(Level.Trial)
+	public void seed(SampleApiState app) {
+		userRepository = app.getBean(UserRepository.class);
+		app.getBean(JdbcTemplate.class).update(
+				"INSERT INTO user (id, version, time_created, time_modified, email, normalized_email, password, password_date, "
+				+ "authority, reset_token, verify_token, enabled, verified) "
+				+ "SELECT RANDOM_UUID(), 0, NOW(), NOW(), CONCAT('User', X, '@Email.com'), CONCAT('user', X, '@email.com'), 'password', NOW(), "
+				+ "'ROLE_USER', RANDOM_UUID(), RANDOM_UUID(), TRUE, FALSE FROM SYSTEM_RANGE(1, ?)", users);
+	}
+
+	@Benchmark
+	public Optional<User> findByEmail() {
+		return userRepository.findByEmail(randomEmail());
+	}
+
+	@Benchmark
+	public Optional<User> findByEmailIgnoreCase() {
+		return Optional.ofNullable(userRepository.select().where(QUser.user.email.equalsIgnoreCase(randomEmail())).fetchFirst());
+	}
+
+	/**
+	 * Returns the email of a random seeded user.
+	 *
+	 * @return String
+	 */
+	private String randomEmail() {
+		return "USER" + (ThreadLocalRandom.current().nextInt(users) + 1) + "@EMAIL.COM";
+	}
+
+}
@@ -15,17 +15,23 @@ import org.springframework.context.annotation.EnableLoadTimeWeaving.AspectJWeavi
 import org.springframework.context.annotation.Import;
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.security.config.annotation.method.configuration.EnableGlobalMethodSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
 import org.springframework.web.servlet.config.annotation.EnableWebMvc;
 
 import com.sample.api.service.EntityRepositoryImpl;
+import com.sample.api.service.email.EmailSender;
+import com.sample.api.service.user.BoundedPasswordEncoder;
+import com.sample.api.service.user.PasswordEncoders;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import lombok.RequiredArgsConstructor;
 import springfox.documentation.builders.ApiInfoBuilder;
 import springfox.documentation.builders.PathSelectors;
@@ -103,9 +109,38 @@ public class SampleApi {
 				.build();
 	}
 
+	/**
+	 * Returns the registry of the application metrics, which are held in memory and not exposed over http.
+	 * It is also added to the global registry, which is used by aspects that aren't beans, and removed when the context closes.
+	 *
+	 * @return MeterRegistry
+	 */
+	@Bean
+	public MeterRegistry meterRegistry() {
+		SimpleMeterRegistry registry = new SimpleMeterRegistry() {
+			@Override
+			public void close() {
+				Metrics.removeRegistry(this);
+				super.close();
+			}
+		};
+
+		Metrics.addRegistry(registry);
+		return registry;
+	}
+
+	@Bean
+	public BoundedPasswordEncoder passwordEncoder(MeterRegistry meterRegistry) {
+		int strength = PasswordEncoders.calibrateStrength(properties.getPasswordHashMillis());
+		PasswordEncoder encoder = PasswordEncoders.createDelegatingEncoder(properties.getPasswordEncoderId(), strength);
+
+		int threads = properties.getPasswordThreads() > 0 ? properties.getPasswordThreads() : Runtime.getRuntime().availableProcessors();
+		return new BoundedPasswordEncoder(encoder, threads, properties.getPasswordQueueSize(), meterRegistry);
+	}
+
 	@Bean
-	public PasswordEncoder passwordEncoder(){
-		return new BCryptPasswordEncoder();
+	public EmailSender emailSender(JavaMailSender mailSender, MeterRegistry meterRegistry) {
+		return new EmailSender(mailSender, properties.getEmailSendBatchSize(), properties.getEmailSendLinger(), properties.getEmailSendQueueSize(), meterRegistry);
 	}
 
 }
@@ -11,6 +11,7 @@ import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExceptionHandler;
 
+import com.sample.api.service.ThrottleException;
 import com.sample.api.validation.ValidationException;
 
 import lombok.extern.slf4j.Slf4j;
@@ -46,6 +47,11 @@ public class SampleApiAdvice extends ResponseEntityExceptionHandler {
 		return new ResponseEntity<>(HttpStatus.CONFLICT);
 	}
 
+	@ExceptionHandler(ThrottleException.class)
+	public ResponseEntity<?> handleThrottleException(ThrottleException ex) {
+		return new ResponseEntity<>(HttpStatus.TOO_MANY_REQUESTS);
+	}
+
 	@ExceptionHandler(Exception.class)
 	public ResponseEntity<?> handleException(Exception ex, HttpServletRequest request) {
 		log	.error(String.format("Error processing [%s]", request.getRequestURI()), ex);
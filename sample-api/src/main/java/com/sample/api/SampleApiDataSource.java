@@ -0,0 +1,66 @@
+package com.sample.api;
+
+import javax.sql.DataSource;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import com.sample.api.jdbc.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * SampleApiDataSource
+ *
+ * Replica data source configuration, which is only applied when a replica url is configured.
+ * The primary pool is built from the standard datasource properties, and the replica pool from the application properties.
+ * Only read only transactions are routed to the replica, so schema management and other work outside of a transaction uses the primary.
+ *
+ * @author Anthony DePalma
+ */
+@Configuration
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "app", name = "replica-url")
+public class SampleApiDataSource {
+
+	// properties
+	private final SampleApiProperties properties;
+
+	@Bean
+	public HikariDataSource primaryDataSource(DataSourceProperties dataSourceProperties) {
+		HikariDataSource primary = dataSourceProperties.initializeDataSourceBuilder()
+				.type(HikariDataSource.class)
+				.build();
+		primary.setPoolName("primary");
+		return primary;
+	}
+
+	@Bean
+	public HikariDataSource replicaDataSource(DataSourceProperties dataSourceProperties) {
+		HikariDataSource replica = DataSourceBuilder.create()
+				.type(HikariDataSource.class)
+				.url(properties.getReplicaUrl())
+				.username(properties.getReplicaUsername() != null ? properties.getReplicaUsername() : dataSourceProperties.determineUsername())
+				.password(properties.getReplicaPassword() != null ? properties.getReplicaPassword() : dataSourceProperties.determinePassword())
+				.build();
+		replica.setPoolName("replica");
+		return replica;
+	}
+
+	@Bean
+	@Primary
+	public DataSource dataSource(HikariDataSource primaryDataSource, HikariDataSource replicaDataSource, MeterRegistry meterRegistry) {
+		ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primaryDataSource, replicaDataSource,
+				properties.getReplicaLag(), properties.getReplicaRetry(), meterRegistry);
+
+		return new LazyConnectionDataSourceProxy(routing);
+	}
+
+}
@@ -0,0 +1,88 @@
+package com.sample.api;
+
+import java.net.URI;
+import java.util.OptionalLong;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PreDestroy;
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.JCacheMetrics;
+
+/**
+ * SampleApiEntityCache
+ *
+ * Hibernate second level cache configuration, backed by Caffeine through JCache.
+ * Each region is created here from the application properties, and hibernate fails to start if an entity names a region that doesn't exist.
+ *
+ * @author Anthony DePalma
+ */
+@Configuration
+public class SampleApiEntityCache {
+
+	// the user entity region
+	public static final String USER_REGION = "user";
+
+	// the cache manager
+	private final CacheManager cacheManager;
+
+	// properties
+	private final SampleApiProperties properties;
+
+	// constructor
+	public SampleApiEntityCache(SampleApiProperties properties, MeterRegistry meterRegistry) {
+		this.properties = properties;
+
+		// use a dedicated manager per application context, so no other context can share or close these caches
+		URI uri = URI.create(SampleApiEntityCache.class.getName() + ":" + UUID.randomUUID());
+		CaffeineCachingProvider provider = (CaffeineCachingProvider) Caching.getCachingProvider(CaffeineCachingProvider.class.getName());
+		this.cacheManager = provider.getCacheManager(uri, getClass().getClassLoader());
+
+		for(String region : new String[] { USER_REGION }) {
+			Cache<Object, Object> cache = cacheManager.createCache(region, createConfiguration());
+
+			if(properties.isEntityCacheStatistics())
+				JCacheMetrics.monitor(meterRegistry, cache);
+		}
+	}
+
+	@Bean
+	public HibernatePropertiesCustomizer entityCacheCustomizer() {
+		return (hibernateProperties) -> {
+			hibernateProperties.put(ConfigSettings.CACHE_MANAGER, cacheManager);
+			hibernateProperties.put(AvailableSettings.GENERATE_STATISTICS, properties.isEntityCacheStatistics());
+		};
+	}
+
+	@PreDestroy
+	public void close() {
+		cacheManager.close();
+	}
+
+	/**
+	 * Creates the configuration of a region.
+	 *
+	 * @return CaffeineConfiguration<Object, Object>
+	 */
+	private CaffeineConfiguration<Object, Object> createConfiguration() {
+		CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+		configuration.setMaximumSize(OptionalLong.of(properties.getEntityCacheSize()));
+		configuration.setExpireAfterWrite(OptionalLong.of(TimeUnit.SECONDS.toNanos(properties.getEntityCacheExpiry())));
+		configuration.setStatisticsEnabled(properties.isEntityCacheStatistics());
+		return configuration;
+	}
+
+}
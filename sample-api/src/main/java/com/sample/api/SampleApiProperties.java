@@ -1,5 +1,11 @@
 package com.sample.api;
 
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.validation.constraints.DecimalMax;
+import javax.validation.constraints.DecimalMin;
+import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
@@ -35,16 +41,149 @@ public class SampleApiProperties {
 	@NotNull
 	private boolean emailSend;
 
+	// true if emails are written to the outbox in the caller's transaction and sent by the dispatcher
+	@NotNull
+	private boolean emailOutbox;
+
+	// true if the outbox is sent by the scheduled dispatcher, which is switched off where batches are dispatched by hand
+	@NotNull
+	private boolean emailDispatch;
+
+	// the number of emails claimed and sent by each dispatcher batch, and the millis between batches
+	@Min(1)
+	private int emailBatchSize;
+
+	@Min(1)
+	private long emailDispatchInterval;
+
+	// the millis a batch holds its emails before another dispatcher may reclaim them
+	@Min(1)
+	private long emailLease;
+
+	// the attempts before an email is abandoned, and the millis before the first and longest retry
+	@Min(1)
+	private int emailMaxAttempts;
+
+	@Min(1)
+	private long emailRetryBackoff;
+
+	@Min(1)
+	private long emailRetryBackoffMax;
+
+	// the messages sent through one connection to the mail server, and the millis a queued message waits for others to join its batch
+	@Min(1)
+	private int emailSendBatchSize;
+
+	@Min(0)
+	private long emailSendLinger;
+
+	// the messages waiting for a batch before more are rejected
+	@Min(1)
+	private int emailSendQueueSize;
+
 	@NotNull
 	private long jwtExpShort;
 
 	@NotNull
 	private long jwtExpLong;
 
+	// the seconds between validating a token against the database, which bounds how long a revocation takes to reach other instances
+	@Min(1)
+	private long jwtValidateInterval;
+
+	// the fraction of a token's lifetime that must pass before it is renewed
+	@NotNull
+	@DecimalMin("0.0")
+	@DecimalMax("1.0")
+	private double jwtRenewThreshold;
+
 	@NotNull
 	private String jwtSecret;
 
+	@NotNull
+	private String jwtKeyId;
+
+	// additional secrets by key id that can verify, but not sign, tokens
+	@NotNull
+	private Map<String, String> jwtSecrets = new HashMap<>();
+
+	@NotNull
+	private long jwtCacheSize;
+
+	@NotNull
+	private long jwtRejectCacheSize;
+
+	@NotNull
+	private long jwtRejectCacheExpiry;
+
 	@NotNull
 	private String corsAllowedOrigin;
 
+	// the size and expiry in seconds of each second level cache region
+	@Min(1)
+	private long entityCacheSize;
+
+	@Min(1)
+	private long entityCacheExpiry;
+
+	// true if hibernate and cache statistics are recorded
+	@NotNull
+	private boolean entityCacheStatistics;
+
+	// the number of password hashing threads, which defaults to the number of processors
+	@NotNull
+	private int passwordThreads;
+
+	@NotNull
+	private int passwordQueueSize;
+
+	// the id of the encoder for new password hashes
+	@NotNull
+	private String passwordEncoderId;
+
+	// the target time of a password hash, used to calibrate the hash strength at startup
+	@NotNull
+	private long passwordHashMillis;
+
+	// the login attempts allowed per minute and in a burst for each email
+	@Min(1)
+	private int loginEmailRate;
+
+	@Min(1)
+	private int loginEmailBurst;
+
+	// the login attempts allowed per minute and in a burst for each remote address
+	@Min(1)
+	private int loginAddressRate;
+
+	@Min(1)
+	private int loginAddressBurst;
+
+	@NotNull
+	private long loginThrottleSize;
+
+	// the default and maximum number of results in a page
+	@Min(1)
+	private int pageSize;
+
+	@Min(1)
+	private int pageSizeMax;
+
+	// the number of imported users validated, hashed and inserted together
+	@Min(1)
+	private int importChunkSize;
+
+	// the replica database, which is only used when the url is set
+	private String replicaUrl;
+	private String replicaUsername;
+	private String replicaPassword;
+
+	// the millis after a write during which reads stay on the primary
+	@Min(0)
+	private long replicaLag;
+
+	// the millis to wait before retrying a failed replica
+	@Min(0)
+	private long replicaRetry;
+
 }
\ No newline at end of file
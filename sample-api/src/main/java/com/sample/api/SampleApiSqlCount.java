@@ -0,0 +1,54 @@
+package com.sample.api;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+
+import com.sample.api.jdbc.SqlCountFilter;
+
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+
+/**
+ * SampleApiSqlCount
+ *
+ * Sql statement counting, which is applied in every profile except prod.
+ * The primary data source is proxied to count the statements, execution time and statement types of each thread,
+ * which tests can read through the QueryCountHolder and each request exposes in the SqlCountFilter headers.
+ *
+ * @author Anthony DePalma
+ */
+@Configuration
+@Profile("!prod")
+public class SampleApiSqlCount {
+
+	// the name of the proxied data source bean
+	private static final String DATA_SOURCE = "dataSource";
+
+	@Bean
+	public static BeanPostProcessor sqlCountDataSourcePostProcessor() {
+		return new BeanPostProcessor() {
+			@Override
+			public Object postProcessAfterInitialization(Object bean, String beanName) {
+				if(!DATA_SOURCE.equals(beanName) || !(bean instanceof DataSource))
+					return bean;
+
+				return ProxyDataSourceBuilder.create(DATA_SOURCE, (DataSource) bean)
+						.countQuery()
+						.build();
+			}
+		};
+	}
+
+	@Bean
+	public FilterRegistrationBean<SqlCountFilter> sqlCountFilter() {
+		FilterRegistrationBean<SqlCountFilter> registration = new FilterRegistrationBean<>(new SqlCountFilter());
+		registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+		return registration;
+	}
+
+}
@@ -0,0 +1,155 @@
+package com.sample.api.jdbc;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * ReplicaRoutingDataSource
+ *
+ * Routes connections between a primary and a replica database.
+ * Only read only transactions use the replica. Read write transactions and work outside of a transaction, such as
+ * startup schema changes, authentication lookups and backfills, use the primary, so they never observe a replica that is behind.
+ *
+ * For a configurable lag after a thread commits a write, its reads stay on the primary so a request can read its own writes.
+ * Writes on other threads don't affect the routing, so one busy writer doesn't pin every read to the primary.
+ * If the replica can't provide a connection, reads fall back to the primary until the replica is retried after a delay.
+ *
+ * The routing decision depends on the transaction state when the connection is obtained, so this data source
+ * must be wrapped in a {@link LazyConnectionDataSourceProxy}, which defers obtaining it until the first statement.
+ *
+ * @author Anthony DePalma
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractDataSource {
+
+	// the target data sources
+	private final DataSource primary;
+	private final DataSource replica;
+
+	// the nanos after a write during which reads stay on the primary
+	private final long lagNanos;
+
+	// the nanos to wait before retrying a failed replica
+	private final long retryNanos;
+
+	// the time of the last write commit on each thread
+	private final ThreadLocal<Long> lastWrite = new ThreadLocal<>();
+
+	// the time the replica may be retried
+	private final AtomicLong replicaRetry;
+
+	// connection counters
+	private final Counter primaryConnections;
+	private final Counter replicaConnections;
+	private final Counter replicaFailures;
+
+	// constructor
+	public ReplicaRoutingDataSource(DataSource primary, DataSource replica, long lagMillis, long retryMillis, MeterRegistry registry) {
+		this.primary = primary;
+		this.replica = replica;
+		this.lagNanos = TimeUnit.MILLISECONDS.toNanos(lagMillis);
+		this.retryNanos = TimeUnit.MILLISECONDS.toNanos(retryMillis);
+
+		// start the retry in the past so the replica is usable immediately
+		this.replicaRetry = new AtomicLong(System.nanoTime() - retryNanos - 1);
+
+		this.primaryConnections = registry.counter("jdbc.connections", "target", "primary");
+		this.replicaConnections = registry.counter("jdbc.connections", "target", "replica");
+		this.replicaFailures = registry.counter("jdbc.replica.failures");
+	}
+
+	@Override
+	public Connection getConnection() throws SQLException {
+		return isReplicaRoute() ? getReplicaConnection(null, null) : getPrimaryConnection(null, null);
+	}
+
+	@Override
+	public Connection getConnection(String username, String password) throws SQLException {
+		return isReplicaRoute() ? getReplicaConnection(username, password) : getPrimaryConnection(username, password);
+	}
+
+	/**
+	 * Returns true if the current connection request can be served by the replica.
+	 * Read write transactions register a synchronization to record the time they commit.
+	 *
+	 * @return boolean
+	 */
+	private boolean isReplicaRoute() {
+		if(!TransactionSynchronizationManager.isActualTransactionActive())
+			return false;
+
+		if(!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+			recordWriteOnCommit();
+			return false;
+		}
+
+		long now = System.nanoTime();
+		Long threadWrite = lastWrite.get();
+		return (threadWrite == null || now - threadWrite >= lagNanos) && now - replicaRetry.get() >= 0;
+	}
+
+	/**
+	 * Records the time of a write on the current thread once the current transaction commits.
+	 */
+	private void recordWriteOnCommit() {
+		if(lagNanos > 0 && TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					lastWrite.set(System.nanoTime());
+				}
+			});
+		}
+	}
+
+	/**
+	 * Returns a connection from the primary.
+	 *
+	 * @param username
+	 * @param password
+	 * @return Connection
+	 * @throws SQLException
+	 */
+	private Connection getPrimaryConnection(String username, String password) throws SQLException {
+		primaryConnections.increment();
+		return username == null ? primary.getConnection() : primary.getConnection(username, password);
+	}
+
+	/**
+	 * Returns a connection from the replica, or from the primary if the replica failed.
+	 *
+	 * @param username
+	 * @param password
+	 * @return Connection
+	 * @throws SQLException
+	 */
+	private Connection getReplicaConnection(String username, String password) throws SQLException {
+		try
+		{
+			Connection connection = username == null ? replica.getConnection() : replica.getConnection(username, password);
+			replicaConnections.increment();
+			return connection;
+		}
+		catch(SQLException e)
+		{
+			log.warn("Replica connection failed, using the primary for [{}] ms", TimeUnit.NANOSECONDS.toMillis(retryNanos), e);
+			replicaRetry.set(System.nanoTime() + retryNanos);
+			replicaFailures.increment();
+			return getPrimaryConnection(username, password);
+		}
+	}
+
+}
@@ -0,0 +1,124 @@
+package com.sample.api.jdbc;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import net.ttddyy.dsproxy.QueryCount;
+import net.ttddyy.dsproxy.QueryCountHolder;
+
+/**
+ * SqlCountFilter
+ *
+ * Filter that counts the sql statements executed by each request, and exposes the counts in debug headers.
+ * Statements are counted per thread by the proxied data source, so the count is reset as each request begins.
+ * The headers are written as the response body is first written, since the response is committed after that,
+ * so statements executed while streaming a response body are not included.
+ *
+ * @author Anthony DePalma
+ */
+public class SqlCountFilter extends OncePerRequestFilter {
+
+	// the debug headers
+	public static final String STATEMENTS = "X-Sql-Statements";
+	public static final String SELECTS = "X-Sql-Selects";
+	public static final String INSERTS = "X-Sql-Inserts";
+	public static final String UPDATES = "X-Sql-Updates";
+	public static final String DELETES = "X-Sql-Deletes";
+	public static final String TIME = "X-Sql-Time";
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+		QueryCountHolder.clear();
+		SqlCountResponse countResponse = new SqlCountResponse(response);
+
+		try
+		{
+			filterChain.doFilter(request, countResponse);
+		}
+		finally
+		{
+			countResponse.addCountHeaders();
+			QueryCountHolder.clear();
+		}
+	}
+
+	/**
+	 * SqlCountResponse
+	 *
+	 * Response that adds the count headers before anything can commit it.
+	 */
+	private static class SqlCountResponse extends HttpServletResponseWrapper {
+
+		// true once the headers were added
+		private boolean counted;
+
+		// constructor
+		public SqlCountResponse(HttpServletResponse response) {
+			super(response);
+		}
+
+		@Override
+		public ServletOutputStream getOutputStream() throws IOException {
+			addCountHeaders();
+			return super.getOutputStream();
+		}
+
+		@Override
+		public PrintWriter getWriter() throws IOException {
+			addCountHeaders();
+			return super.getWriter();
+		}
+
+		@Override
+		public void flushBuffer() throws IOException {
+			addCountHeaders();
+			super.flushBuffer();
+		}
+
+		@Override
+		public void sendError(int sc) throws IOException {
+			addCountHeaders();
+			super.sendError(sc);
+		}
+
+		@Override
+		public void sendError(int sc, String msg) throws IOException {
+			addCountHeaders();
+			super.sendError(sc, msg);
+		}
+
+		@Override
+		public void sendRedirect(String location) throws IOException {
+			addCountHeaders();
+			super.sendRedirect(location);
+		}
+
+		/**
+		 * Adds the headers with the statements counted so far, unless they were already added or the response is committed.
+		 */
+		public void addCountHeaders() {
+			if(counted || isCommitted())
+				return;
+
+			counted = true;
+			QueryCount count = QueryCountHolder.getGrandTotal();
+			setHeader(STATEMENTS, String.valueOf(count.getTotal()));
+			setHeader(SELECTS, String.valueOf(count.getSelect()));
+			setHeader(INSERTS, String.valueOf(count.getInsert()));
+			setHeader(UPDATES, String.valueOf(count.getUpdate()));
+			setHeader(DELETES, String.valueOf(count.getDelete()));
+			setHeader(TIME, String.valueOf(count.getTime()));
+		}
+
+	}
+
+}
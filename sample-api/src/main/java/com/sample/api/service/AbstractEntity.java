@@ -37,10 +37,11 @@ public abstract class AbstractEntity implements Serializable {
 	/*
 	 * The id represents the surrogate key that uniquely identifies this entity.
 	 * It is important that the id is generated immediately on object creation to ensure immutability in collections.
+	 * Ids are time ordered, so new rows are appended to the end of the primary key index instead of scattered across it.
 	 */
 	@Id
 	@EqualsAndHashCode.Include
-	private UUID id = UUID.randomUUID();
+	private UUID id = UuidGenerator.TIME_ORDERED.generate();
 
 	/*
 	 * The version keeps count of the number of changes to the entity.
@@ -33,4 +33,12 @@ public abstract class AbstractEntityResponse {
 		this.timeModified = entity.getTimeModified();
 	}
 
+	// constructor for projections
+	public AbstractEntityResponse(UUID id, Long version, Instant timeCreated, Instant timeModified) {
+		this.id = id;
+		this.version = version;
+		this.timeCreated = timeCreated;
+		this.timeModified = timeModified;
+	}
+
 }
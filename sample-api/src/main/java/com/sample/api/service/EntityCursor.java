@@ -0,0 +1,91 @@
+package com.sample.api.service;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.UUID;
+
+import com.sample.api.validation.ValidationException;
+
+import lombok.Getter;
+
+/**
+ * EntityCursor
+ *
+ * Position of an entity in the (timeCreated, id) order, used to resume a page of results after the last entity returned.
+ * The cursor is encoded as an opaque, url safe token so clients don't depend on its contents.
+ *
+ * @author Anthony DePalma
+ */
+@Getter
+public final class EntityCursor {
+
+	// the encoded length of a cursor in bytes
+	private static final int LENGTH = Long.BYTES + Integer.BYTES + Long.BYTES + Long.BYTES;
+
+	// the time the entity was created
+	private final Instant timeCreated;
+
+	// the id of the entity
+	private final UUID id;
+
+	// constructor
+	public EntityCursor(AbstractEntity entity) {
+		this.timeCreated = entity.getTimeCreated();
+		this.id = entity.getId();
+	}
+
+	// constructor
+	public EntityCursor(AbstractEntityResponse response) {
+		this.timeCreated = response.getTimeCreated();
+		this.id = response.getId();
+	}
+
+	// constructor
+	public EntityCursor(Instant timeCreated, UUID id) {
+		this.timeCreated = timeCreated;
+		this.id = id;
+	}
+
+	/**
+	 * Encodes the cursor into a token.
+	 *
+	 * @return String
+	 */
+	public String encode() {
+		ByteBuffer buffer = ByteBuffer.allocate(LENGTH)
+				.putLong(timeCreated.getEpochSecond())
+				.putInt(timeCreated.getNano())
+				.putLong(id.getMostSignificantBits())
+				.putLong(id.getLeastSignificantBits());
+
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+	}
+
+	/**
+	 * Decodes a cursor from a token, or throws a ValidationException if the token is invalid.
+	 *
+	 * @param token
+	 * @return EntityCursor
+	 * @throws ValidationException
+	 */
+	public static EntityCursor decode(String token) throws ValidationException {
+		try
+		{
+			ByteBuffer buffer = ByteBuffer.wrap(Base64.getUrlDecoder().decode(token));
+
+			if(buffer.remaining() != LENGTH)
+				throw ValidationException.of("cursor", "invalid");
+
+			Instant timeCreated = Instant.ofEpochSecond(buffer.getLong(), buffer.getInt());
+			return new EntityCursor(timeCreated, new UUID(buffer.getLong(), buffer.getLong()));
+		}
+		catch(IllegalArgumentException | BufferUnderflowException | ArithmeticException | DateTimeException e)
+		{
+			throw ValidationException.of("cursor", "invalid");
+		}
+	}
+
+}
@@ -0,0 +1,47 @@
+package com.sample.api.service;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+
+import lombok.Getter;
+
+/**
+ * EntityPage
+ *
+ * A page of results, along with the cursor of the next page which is null once there are no more results.
+ *
+ * @param <T>
+ * @author Anthony DePalma
+ */
+@Getter
+@JsonInclude(Include.NON_NULL)
+public final class EntityPage<T> {
+
+	// the results
+	private final List<T> items;
+
+	// the cursor of the next page
+	private final String cursor;
+
+	// constructor
+	public EntityPage(List<T> items, String cursor) {
+		this.items = items;
+		this.cursor = cursor;
+	}
+
+	/**
+	 * Returns a page with each result converted by the given function.
+	 *
+	 * @param <R>
+	 * @param function
+	 * @return EntityPage<R>
+	 */
+	public <R> EntityPage<R> map(Function<? super T, R> function) {
+		return new EntityPage<>(items.stream().map(function).collect(Collectors.toList()), cursor);
+	}
+
+}
@@ -1,6 +1,11 @@
 package com.sample.api.service;
 
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.function.Supplier;
 
 import javax.persistence.EntityNotFoundException;
@@ -8,7 +13,10 @@ import javax.persistence.EntityNotFoundException;
 import org.springframework.data.repository.NoRepositoryBean;
 import org.springframework.data.repository.PagingAndSortingRepository;
 
+import com.querydsl.core.types.Expression;
 import com.querydsl.jpa.JPQLQuery;
+import com.querydsl.jpa.impl.JPADeleteClause;
+import com.querydsl.jpa.impl.JPAUpdateClause;
 
 
 /**
@@ -30,6 +38,16 @@ public interface EntityRepository<T extends AbstractEntity> extends PagingAndSor
 	 */
 	public JPQLQuery<T> select();
 
+	/**
+	 * Returns a JPQL select query for a projection of an entity, such as a column, a tuple or a constructor expression.
+	 * Projections are not managed by the persistence context, so read only queries avoid loading and tracking whole entities.
+	 *
+	 * @param <P>
+	 * @param projection
+	 * @return JPQLQuery<P>
+	 */
+	public <P> JPQLQuery<P> select(Expression<P> projection);
+
 	/**
 	 * Gets an entity by id, or throws an EntityNotFoundException.
 	 *
@@ -39,6 +57,14 @@ public interface EntityRepository<T extends AbstractEntity> extends PagingAndSor
 	 */
 	public T getById(UUID id) throws EntityNotFoundException;
 
+	/**
+	 * Finds an entity by its simple natural id, which is resolved through the natural id cache when the entity is cached.
+	 *
+	 * @param naturalId
+	 * @return Optional<T>
+	 */
+	public Optional<T> findByNaturalId(Serializable naturalId);
+
 	/**
 	 * Gets an entity by a query, or throws an EntityNotFoundException.
 	 *
@@ -49,4 +75,76 @@ public interface EntityRepository<T extends AbstractEntity> extends PagingAndSor
 	 */
 	public T getByQuery(JPQLQuery<T> query, Supplier<EntityNotFoundException> exceptionSupplier) throws EntityNotFoundException;
 
+	/**
+	 * Finds a page of results ordered by (timeCreated, id), starting after the entity of the given cursor.
+	 * Pages are resumed from the position of the last entity rather than an offset, so every page uses the index and costs the same.
+	 *
+	 * @param query
+	 * @param cursor the cursor of the page, or null for the first page
+	 * @param size
+	 * @return EntityPage<T>
+	 */
+	public EntityPage<T> findPage(JPQLQuery<T> query, String cursor, int size);
+
+	/**
+	 * Finds a page of projected results ordered by (timeCreated, id), starting after the entity of the given cursor.
+	 *
+	 * @param <P>
+	 * @param query
+	 * @param cursor the cursor of the page, or null for the first page
+	 * @param size
+	 * @param cursorFunction returns the cursor of a result
+	 * @return EntityPage<P>
+	 */
+	public <P> EntityPage<P> findPage(JPQLQuery<P> query, String cursor, int size, Function<? super P, EntityCursor> cursorFunction);
+
+	/**
+	 * Passes each result of a query to a consumer as it is read from the database cursor.
+	 * Entities are detached once consumed, so memory stays constant regardless of the number of results.
+	 * This must be called within a transaction.
+	 *
+	 * @param <P>
+	 * @param query
+	 * @param consumer
+	 */
+	public <P> void iterate(JPQLQuery<P> query, Consumer<? super P> consumer);
+
+	/**
+	 * Inserts new entities through JDBC batching, flushing and clearing the persistence context after every batch.
+	 * The persistence context is cleared, so any entity loaded earlier in the transaction is detached as well.
+	 * This must be called within a transaction.
+	 *
+	 * @param entities
+	 */
+	public void insertAll(Collection<? extends T> entities);
+
+	/**
+	 * Inserts a new entity in the caller's transaction unless a unique constraint rejects it, and returns false if it was rejected.
+	 * The entity is inserted immediately within a savepoint, so a rejected insert is rolled back on its own and the caller's transaction carries on.
+	 * The entity is not managed by the persistence context once inserted.
+	 * This must be called within a transaction.
+	 *
+	 * @param entity
+	 * @return boolean
+	 */
+	public boolean insertIfAbsent(T entity);
+
+	/**
+	 * Returns a JPQL bulk update of an entity, which already increments the version and sets the time modified.
+	 * The update runs as a single statement, and hibernate evicts the entity from the second level cache when it is executed.
+	 * This must be executed within a transaction, and entities already loaded in that transaction are not refreshed.
+	 *
+	 * @return JPAUpdateClause
+	 */
+	public JPAUpdateClause update();
+
+	/**
+	 * Returns a JPQL bulk delete of an entity.
+	 * The delete runs as a single statement, and hibernate evicts the entity from the second level cache when it is executed.
+	 * This must be executed within a transaction, and entities already loaded in that transaction are not removed.
+	 *
+	 * @return JPADeleteClause
+	 */
+	public JPADeleteClause delete();
+
 }
@@ -1,19 +1,41 @@
 package com.sample.api.service;
 
+import java.io.Serializable;
+import java.sql.Savepoint;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.function.Supplier;
 
 import javax.persistence.EntityManager;
 import javax.persistence.EntityNotFoundException;
 
+import org.hibernate.Session;
+import org.hibernate.StatelessSession;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.exception.ConstraintViolationException;
+import org.hibernate.jpa.QueryHints;
 import org.springframework.data.jpa.repository.support.JpaEntityInformation;
 import org.springframework.data.jpa.repository.support.SimpleJpaRepository;
 import org.springframework.data.querydsl.SimpleEntityPathResolver;
 
+import com.mysema.commons.lang.CloseableIterator;
 import com.querydsl.core.types.EntityPath;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.dsl.ComparablePath;
+import com.querydsl.core.types.dsl.DateTimePath;
+import com.querydsl.core.types.dsl.NumberPath;
+import com.querydsl.core.types.dsl.PathBuilder;
 import com.querydsl.jpa.JPQLQuery;
+import com.querydsl.jpa.impl.AbstractJPAQuery;
+import com.querydsl.jpa.impl.JPADeleteClause;
 import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAUpdateClause;
 
 /**
  * EntityRepositoryImpl
@@ -28,14 +50,34 @@ public class EntityRepositoryImpl <T extends AbstractEntity> extends SimpleJpaRe
 	// the entity manager
 	private final EntityManager entityManager;
 
+	// the number of rows fetched from the database cursor at a time
+	private static final int FETCH_SIZE = 500;
+
+	// the standard sql state of a unique constraint violation
+	private static final String UNIQUE_VIOLATION = "23505";
+
 	// the entity path
 	private final EntityPath<T> entityPath;
 
+	// the keyset paths
+	private final DateTimePath<Instant> timeCreatedPath;
+	private final ComparablePath<UUID> idPath;
+
+	// the paths maintained by bulk updates
+	private final NumberPath<Long> versionPath;
+	private final DateTimePath<Instant> timeModifiedPath;
+
 	// constructor
 	public EntityRepositoryImpl(JpaEntityInformation<T, String> entityInformation, EntityManager entityManager) {
 		super(entityInformation, entityManager);
 		this.entityManager = entityManager;
 		this.entityPath = SimpleEntityPathResolver.INSTANCE.createPath(entityInformation.getJavaType());
+
+		PathBuilder<T> pathBuilder = new PathBuilder<>(entityPath.getType(), entityPath.getMetadata());
+		this.timeCreatedPath = pathBuilder.getDateTime("timeCreated", Instant.class);
+		this.idPath = pathBuilder.getComparable("id", UUID.class);
+		this.versionPath = pathBuilder.getNumber("version", Long.class);
+		this.timeModifiedPath = pathBuilder.getDateTime("timeModified", Instant.class);
 	}
 
 	@Override
@@ -44,16 +86,133 @@ public class EntityRepositoryImpl <T extends AbstractEntity> extends SimpleJpaRe
 		return query.from(entityPath);
 	}
 
+	@Override
+	public <P> JPQLQuery<P> select(Expression<P> projection) {
+		return new JPAQuery<>(entityManager).select(projection).from(entityPath);
+	}
+
 	@Override
 	public T getById(UUID id) {
 		Optional<T> optional = super.findById(id);
 		return optional.orElseThrow(() -> new EntityNotFoundException(String.format("No entity [%s] with id [%s]", entityPath, id.toString())));
 	}
 
+	@Override
+	public Optional<T> findByNaturalId(Serializable naturalId) {
+		return entityManager.unwrap(Session.class).bySimpleNaturalId(getDomainClass()).loadOptional(naturalId);
+	}
+
 	@Override
 	public T getByQuery(JPQLQuery<T> query, Supplier<EntityNotFoundException> exceptionSupplier) throws EntityNotFoundException {
 		Optional<T> optional = Optional.ofNullable(query.fetchOne());
 		return optional.orElseThrow(exceptionSupplier);
 	}
 
-}
\ No newline at end of file
+	@Override
+	public EntityPage<T> findPage(JPQLQuery<T> query, String cursor, int size) {
+		return findPage(query, cursor, size, EntityCursor::new);
+	}
+
+	@Override
+	public <P> EntityPage<P> findPage(JPQLQuery<P> query, String cursor, int size, Function<? super P, EntityCursor> cursorFunction) {
+
+		// resume after the cursor entity
+		if(cursor != null) {
+			EntityCursor after = EntityCursor.decode(cursor);
+			query.where(timeCreatedPath.gt(after.getTimeCreated())
+					.or(timeCreatedPath.eq(after.getTimeCreated()).and(idPath.gt(after.getId()))));
+		}
+
+		// fetch one extra result to know whether there is a next page
+		List<P> results = query.orderBy(timeCreatedPath.asc(), idPath.asc()).limit(size + 1).fetch();
+
+		if(results.size() <= size)
+			return new EntityPage<>(results, null);
+
+		List<P> items = new ArrayList<>(results.subList(0, size));
+		return new EntityPage<>(items, cursorFunction.apply(items.get(size - 1)).encode());
+	}
+
+	@Override
+	public <P> void iterate(JPQLQuery<P> query, Consumer<? super P> consumer) {
+		((AbstractJPAQuery<P, ?>) query).setHint(QueryHints.HINT_FETCH_SIZE, FETCH_SIZE);
+
+		try(CloseableIterator<P> iterator = query.iterate())
+		{
+			while(iterator.hasNext()) {
+				P result = iterator.next();
+				consumer.accept(result);
+
+				// projections are never managed, so only entities need to be detached
+				if(result instanceof AbstractEntity)
+					entityManager.detach(result);
+			}
+		}
+	}
+
+	@Override
+	public void insertAll(Collection<? extends T> entities) {
+		int batchSize = Math.max(1, entityManager.unwrap(SharedSessionContractImplementor.class).getConfiguredJdbcBatchSize());
+		int count = 0;
+
+		for(T entity : entities) {
+			entityManager.persist(entity);
+
+			// flush each full batch as one statement, and release the inserted entities from memory
+			if(++count % batchSize == 0) {
+				entityManager.flush();
+				entityManager.clear();
+			}
+		}
+
+		entityManager.flush();
+		entityManager.clear();
+	}
+
+	@Override
+	public boolean insertIfAbsent(T entity) {
+		Session session = entityManager.unwrap(Session.class);
+
+		// a stateless session skips the entity listeners, so the audit times are set here
+		Instant now = Instant.now();
+		entity.setTimeCreated(now);
+		entity.setTimeModified(now);
+
+		// insert through a stateless session on the transaction's connection, so a failure never reaches the persistence context of the caller
+		return session.doReturningWork(connection -> {
+			Savepoint savepoint = connection.setSavepoint();
+
+			try(StatelessSession statelessSession = session.getSessionFactory().withStatelessOptions().connection(connection).openStatelessSession())
+			{
+				statelessSession.insert(entity);
+
+				// inserts are batched, so the batch is executed before the savepoint is released
+				((SharedSessionContractImplementor) statelessSession).getJdbcCoordinator().executeBatch();
+				connection.releaseSavepoint(savepoint);
+				return true;
+			}
+			catch(ConstraintViolationException e)
+			{
+				connection.rollback(savepoint);
+
+				if(!UNIQUE_VIOLATION.equals(e.getSQLState()))
+					throw e;
+
+				return false;
+			}
+		});
+	}
+
+	@Override
+	public JPAUpdateClause update() {
+		return new JPAUpdateClause(entityManager, entityPath)
+				.set(versionPath, versionPath.add(1L))
+				.set(timeModifiedPath, Instant.now());
+	}
+
+	@Override
+	public JPADeleteClause delete() {
+		return new JPADeleteClause(entityManager, entityPath);
+	}
+
+}
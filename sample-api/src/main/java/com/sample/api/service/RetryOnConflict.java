@@ -0,0 +1,38 @@
+package com.sample.api.service;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * RetryOnConflict
+ *
+ * Retries a method when it fails with an OptimisticLockingFailureException, waiting a random backoff between attempts.
+ * The retry wraps the transaction of the method, so each attempt runs in a new transaction that reloads the entities.
+ * Only methods that can safely run again from the start should be annotated, and the retry is skipped when the method
+ * joins a transaction that is already active, since that transaction can't be reloaded.
+ *
+ * @author Anthony DePalma
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RetryOnConflict {
+
+	/**
+	 * The maximum number of attempts, including the first.
+	 *
+	 * @return int
+	 */
+	int maxAttempts() default 3;
+
+	/**
+	 * The base backoff in milliseconds, which is doubled after every attempt and jittered between zero and the backoff.
+	 *
+	 * @return long
+	 */
+	long backoff() default 50;
+
+}
@@ -0,0 +1,72 @@
+package com.sample.api.service;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.DeclarePrecedence;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import io.micrometer.core.instrument.Metrics;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * RetryOnConflictAspect
+ *
+ * Aspect that retries methods annotated with RetryOnConflict, which is woven at load time like the transaction aspect.
+ * It takes precedence over the transaction aspect, so every attempt begins and commits its own transaction.
+ * Attempts are counted on the global meter registry, since the aspect is created by the weaver rather than by Spring.
+ *
+ * @author Anthony DePalma
+ */
+@Slf4j
+@Aspect
+@DeclarePrecedence("com.sample.api.service.RetryOnConflictAspect, org.springframework.transaction.aspectj.*")
+public class RetryOnConflictAspect {
+
+	@Around("execution(* *(..)) && @annotation(retryOnConflict)")
+	public Object retry(ProceedingJoinPoint joinPoint, RetryOnConflict retryOnConflict) throws Throwable {
+
+		// an outer transaction would keep its stale entities, so leave the conflict to the outer method
+		if(TransactionSynchronizationManager.isActualTransactionActive())
+			return joinPoint.proceed();
+
+		String method = joinPoint.getSignature().getDeclaringType().getSimpleName() + "." + joinPoint.getSignature().getName();
+
+		for(int attempt = 1; ; attempt++) {
+			try
+			{
+				Object result = joinPoint.proceed();
+
+				if(attempt > 1)
+					Metrics.counter("service.conflict.retries", "method", method, "result", "recovered").increment();
+
+				return result;
+			}
+			catch(OptimisticLockingFailureException e)
+			{
+				if(attempt >= retryOnConflict.maxAttempts()) {
+					Metrics.counter("service.conflict.retries", "method", method, "result", "exhausted").increment();
+					throw e;
+				}
+
+				Metrics.counter("service.conflict.retries", "method", method, "result", "retried").increment();
+				long backoff = ThreadLocalRandom.current().nextLong((retryOnConflict.backoff() << (attempt - 1)) + 1);
+				log.debug("Retrying [{}] after conflict in [{}ms], attempt [{}]", method, backoff, attempt);
+
+				try
+				{
+					Thread.sleep(backoff);
+				}
+				catch(InterruptedException ie)
+				{
+					Thread.currentThread().interrupt();
+					throw e;
+				}
+			}
+		}
+	}
+
+}
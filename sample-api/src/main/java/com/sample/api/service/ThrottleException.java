@@ -0,0 +1,18 @@
+package com.sample.api.service;
+
+/**
+ * ThrottleException
+ *
+ * Exception thrown when a request is rejected because a limited resource is saturated.
+ * It corresponds to the status code 429 TOO_MANY_REQUESTS.
+ *
+ * @author Anthony DePalma
+ */
+public class ThrottleException extends RuntimeException {
+
+	// constructor
+	public ThrottleException(String message) {
+		super(message);
+	}
+
+}
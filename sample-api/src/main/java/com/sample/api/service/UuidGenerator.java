@@ -0,0 +1,109 @@
+package com.sample.api.service;
+
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.UUID;
+
+/**
+ * UuidGenerator
+ *
+ * Generates UUIDs for identifiers and tokens.
+ *
+ * TIME_ORDERED is used for entity ids by default, since ids that increase over time are appended to the end of the primary key index.
+ * SECURE_RANDOM is used for tokens that must be unguessable, and reads from a secure random owned by each thread.
+ * RANDOM is the JDK generator, which reads from a single secure random shared by every thread.
+ *
+ * @author Anthony DePalma
+ */
+public enum UuidGenerator {
+
+	/**
+	 * Version 7 UUIDs, made of a 48 bit unix millisecond timestamp followed by 74 random bits.
+	 * The random bits come from the secure random of the calling thread, so an id can't be guessed from the ids generated before it.
+	 */
+	TIME_ORDERED {
+		@Override
+		public UUID generate() {
+			SecureRandom random = SECURE_RANDOMS.get();
+			long mostSigBits = (System.currentTimeMillis() << 16) | VERSION_7 | (random.nextLong() & 0x0FFFL);
+			long leastSigBits = VARIANT | (random.nextLong() & 0x3FFFFFFFFFFFFFFFL);
+			return new UUID(mostSigBits, leastSigBits);
+		}
+	},
+
+	/**
+	 * Version 4 UUIDs from a secure random owned by the calling thread, so concurrent callers never wait on each other.
+	 */
+	SECURE_RANDOM {
+		@Override
+		public UUID generate() {
+			byte[] bytes = new byte[16];
+			SECURE_RANDOMS.get().nextBytes(bytes);
+			return toVersion4(bytes);
+		}
+	},
+
+	/**
+	 * Version 4 UUIDs from the JDK.
+	 */
+	RANDOM {
+		@Override
+		public UUID generate() {
+			return UUID.randomUUID();
+		}
+	};
+
+	// the version and variant bits
+	private static final long VERSION_7 = 0x7000L;
+	private static final long VERSION_4 = 0x4000L;
+	private static final long VARIANT = 0x8000000000000000L;
+
+	// the shared source of seeds, which reads from the non blocking system entropy source
+	private static final SecureRandom SEEDS = new SecureRandom();
+
+	// the secure random of each thread, seeded once so that it never reads from the system entropy source again
+	private static final ThreadLocal<SecureRandom> SECURE_RANDOMS = ThreadLocal.withInitial(() -> {
+		try
+		{
+			byte[] seed = new byte[32];
+			SEEDS.nextBytes(seed);
+
+			SecureRandom random = SecureRandom.getInstance("SHA1PRNG");
+			random.setSeed(seed);
+			return random;
+		}
+		catch(NoSuchAlgorithmException e)
+		{
+			throw new IllegalStateException(e);
+		}
+	});
+
+	/**
+	 * Generates a new UUID.
+	 *
+	 * @return UUID
+	 */
+	public abstract UUID generate();
+
+	/**
+	 * Returns a version 4 UUID from 16 random bytes.
+	 *
+	 * @param bytes
+	 * @return UUID
+	 */
+	private static UUID toVersion4(byte[] bytes) {
+		long mostSigBits = 0;
+		long leastSigBits = 0;
+
+		for(int i = 0; i < 8; i++)
+			mostSigBits = (mostSigBits << 8) | (bytes[i] & 0xFF);
+
+		for(int i = 8; i < 16; i++)
+			leastSigBits = (leastSigBits << 8) | (bytes[i] & 0xFF);
+
+		mostSigBits = (mostSigBits & ~0xF000L) | VERSION_4;
+		leastSigBits = (leastSigBits & 0x3FFFFFFFFFFFFFFFL) | VARIANT;
+		return new UUID(mostSigBits, leastSigBits);
+	}
+
+}
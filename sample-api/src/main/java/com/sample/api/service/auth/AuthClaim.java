@@ -6,9 +6,11 @@ import java.util.UUID;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 
-import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import com.sample.api.service.user.User;
 import com.sample.api.service.user.UserAuthority;
+import com.sample.api.service.user.UserCredential;
 
 import lombok.Getter;
 import lombok.Setter;
@@ -17,13 +19,15 @@ import lombok.Setter;
  * AuthClaim
  *
  * Encapsulates all the claim details stored inside a jwt.
- * The json property names are kept short as this object is serialized and sent with every request.
+ * This object is serialized and sent with every request, so it is written in the compact format of the AuthClaimCodec.
  * This object is stored inside the thread local SecurityContext, so it can be retrieved statically from the executing thread.
  *
  * @author Anthony DePalma
  */
 @Getter
 @Setter
+@JsonSerialize(using = AuthClaimCodec.Serializer.class)
+@JsonDeserialize(using = AuthClaimCodec.Deserializer.class)
 public class AuthClaim {
 
 	// the jwt auth claim key
@@ -39,16 +43,12 @@ public class AuthClaim {
 		return (AuthClaim) authentication.getPrincipal();
 	}
 
-	@JsonProperty("uid")
 	private UUID userId;
 
-	@JsonProperty("ath")
 	private UserAuthority authority;
 
-	@JsonProperty("pdt")
 	private long passwordDate;
 
-	@JsonProperty("lex")
 	private boolean longExpiration;
 
 	// constructor
@@ -87,4 +87,27 @@ public class AuthClaim {
 		return Objects.equals(userId, user.getId());
 	}
 
+	/**
+	 * Returns true if this auth claim matches the values in the UserCredential object.
+	 * This method will return true if the authority, password date, and id are all identical.
+	 *
+	 * @param credential
+	 * @return boolean
+	 */
+	public boolean isMatch(UserCredential credential) {
+
+		// if the user's authority doesn't match, return false
+		if(!Objects.equals(authority, credential.getAuthority())) {
+			return false;
+		}
+
+		// if the user's password date doesn't match, return false
+		if(passwordDate != credential.getPasswordDate()) {
+			return false;
+		}
+
+		// return true if the user id matches
+		return Objects.equals(userId, credential.getUserId());
+	}
+
 }
\ No newline at end of file
@@ -0,0 +1,198 @@
+package com.sample.api.service.auth;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.UUID;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.sample.api.service.user.UserAuthority;
+
+/**
+ * AuthClaimCodec
+ *
+ * Encodes an AuthClaim into a compact base64url string, which is how the claim is stored inside a jwt.
+ * The encoded bytes are a format version, the 16 byte user id, a byte holding the authority ordinal and the long expiration flag,
+ * and the password date as a zigzag varint. This is roughly a third of the size of the equivalent json object.
+ *
+ * Tokens issued before this format hold the claim as a json object, which is still read during the migration window.
+ *
+ * @author Anthony DePalma
+ */
+public final class AuthClaimCodec {
+
+	// the current format version
+	private static final byte VERSION = 1;
+
+	// the maximum length of the encoded bytes
+	private static final int MAX_LENGTH = 1 + 16 + 1 + 10;
+
+	// legacy json property names
+	private static final String LEGACY_USER_ID = "uid";
+	private static final String LEGACY_AUTHORITY = "ath";
+	private static final String LEGACY_PASSWORD_DATE = "pdt";
+	private static final String LEGACY_LONG_EXPIRATION = "lex";
+
+	// the authority values by ordinal
+	private static final UserAuthority[] AUTHORITIES = UserAuthority.values();
+
+	// constructor
+	private AuthClaimCodec() {
+
+	}
+
+	/**
+	 * Encodes a claim.
+	 *
+	 * @param claim
+	 * @return String
+	 */
+	public static String encode(AuthClaim claim) {
+		ByteBuffer buffer = ByteBuffer.allocate(MAX_LENGTH);
+		buffer.put(VERSION);
+		buffer.putLong(claim.getUserId().getMostSignificantBits());
+		buffer.putLong(claim.getUserId().getLeastSignificantBits());
+		buffer.put((byte) (claim.getAuthority().ordinal() << 1 | (claim.isLongExpiration() ? 1 : 0)));
+
+		// write the password date as a zigzag varint
+		long value = (claim.getPasswordDate() << 1) ^ (claim.getPasswordDate() >> 63);
+
+		while((value & ~0x7FL) != 0) {
+			buffer.put((byte) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+
+		buffer.put((byte) value);
+
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(
+				buffer.position() == MAX_LENGTH ? buffer.array() : Arrays.copyOf(buffer.array(), buffer.position()));
+	}
+
+	/**
+	 * Decodes a claim.
+	 *
+	 * @param encoded
+	 * @throws IllegalArgumentException
+	 * @return AuthClaim
+	 */
+	public static AuthClaim decode(String encoded) throws IllegalArgumentException {
+		ByteBuffer buffer = ByteBuffer.wrap(Base64.getUrlDecoder().decode(encoded));
+
+		if(buffer.remaining() < 19 || buffer.get() != VERSION)
+			throw new IllegalArgumentException("Unsupported claim format");
+
+		AuthClaim claim = new AuthClaim();
+		claim.setUserId(new UUID(buffer.getLong(), buffer.getLong()));
+
+		int flags = buffer.get() & 0xFF;
+
+		if((flags >>> 1) >= AUTHORITIES.length)
+			throw new IllegalArgumentException("Unknown authority");
+
+		claim.setAuthority(AUTHORITIES[flags >>> 1]);
+		claim.setLongExpiration((flags & 1) == 1);
+
+		// read the password date as a zigzag varint
+		long value = 0;
+
+		for(int shift = 0; ; shift += 7) {
+			if(shift > 63 || !buffer.hasRemaining())
+				throw new IllegalArgumentException("Malformed password date");
+
+			byte b = buffer.get();
+			value |= (long) (b & 0x7F) << shift;
+
+			if((b & 0x80) == 0)
+				break;
+		}
+
+		claim.setPasswordDate((value >>> 1) ^ -(value & 1));
+		return claim;
+	}
+
+	/**
+	 * Serializer
+	 *
+	 * Writes a claim as its encoded string.
+	 */
+	public static class Serializer extends StdSerializer<AuthClaim> {
+
+		// constructor
+		public Serializer() {
+			super(AuthClaim.class);
+		}
+
+		@Override
+		public void serialize(AuthClaim claim, JsonGenerator generator, SerializerProvider provider) throws IOException {
+			generator.writeString(encode(claim));
+		}
+
+	}
+
+	/**
+	 * Deserializer
+	 *
+	 * Reads a claim from its encoded string, or from the legacy json object.
+	 */
+	public static class Deserializer extends StdDeserializer<AuthClaim> {
+
+		// constructor
+		public Deserializer() {
+			super(AuthClaim.class);
+		}
+
+		@Override
+		public AuthClaim deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+
+			// read the compact format
+			if(parser.currentToken() == JsonToken.VALUE_STRING) {
+				try
+				{
+					return decode(parser.getText());
+				}
+				catch(IllegalArgumentException e)
+				{
+					return (AuthClaim) context.handleWeirdStringValue(AuthClaim.class, parser.getText(), e.getMessage());
+				}
+			}
+
+			if(parser.currentToken() != JsonToken.START_OBJECT)
+				return (AuthClaim) context.handleUnexpectedToken(AuthClaim.class, parser);
+
+			// read the legacy json object
+			AuthClaim claim = new AuthClaim();
+
+			for(String name = parser.nextFieldName(); name != null; name = parser.nextFieldName()) {
+				parser.nextToken();
+
+				switch(name) {
+					case LEGACY_USER_ID:
+						claim.setUserId(UUID.fromString(parser.getText()));
+						break;
+					case LEGACY_AUTHORITY:
+						claim.setAuthority(UserAuthority.valueOf(parser.getText()));
+						break;
+					case LEGACY_PASSWORD_DATE:
+						claim.setPasswordDate(parser.getLongValue());
+						break;
+					case LEGACY_LONG_EXPIRATION:
+						claim.setLongExpiration(parser.getBooleanValue());
+						break;
+					default:
+						parser.skipChildren();
+				}
+			}
+
+			return claim;
+		}
+
+	}
+
+}
@@ -1,5 +1,7 @@
 package com.sample.api.service.auth;
 
+import javax.servlet.http.HttpServletRequest;
+
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -23,9 +25,9 @@ public class AuthController {
 	private final AuthService authService;
 
 	@PostMapping("token")
-	public String getToken(@RequestBody AuthRequest authRequest) {
+	public String getToken(@RequestBody AuthRequest authRequest, HttpServletRequest request) {
 		log.info("Get token for user [{}]", authRequest.getUsername());
-		return authService.getToken(authRequest);
+		return authService.getToken(authRequest, request.getRemoteAddr());
 	}
 
 }
\ No newline at end of file
@@ -25,6 +25,7 @@ import lombok.RequiredArgsConstructor;
  *
  * Security filter that extracts a JWT from the Authorization header and sets it into the SecurityContext.
  * Additionally, the filter will renew the token to extend the expiration, simulating the behavior of traditional stateful sessions.
+ * Tokens are only renewed once enough of their lifetime has passed, otherwise the request is passed through without a new token.
  *
  * @author Anthony DePalma
  */
@@ -37,6 +38,7 @@ public class AuthFilter extends OncePerRequestFilter {
 
 	// properties
 	private final AuthService authService;
+	private final AuthMetrics authMetrics;
 
 	@Override
 	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain) throws IOException, ServletException {
@@ -66,9 +68,17 @@ public class AuthFilter extends OncePerRequestFilter {
 			Authentication authentication = authService.getAuthentication(jws);
 			SecurityContextHolder.getContext().setAuthentication(authentication);
 
-			// update the token to extend the expiration
-			String newToken = authService.renewToken(jws, valid.isPresent() && valid.get().booleanValue());
-			response.addHeader(HttpHeaders.AUTHORIZATION, AUTH_PREFIX + newToken);
+			// update the token to extend the expiration if it is due for renewal
+			boolean validated = valid.isPresent() && valid.get().booleanValue();
+
+			if(authService.isRenewable(jws, validated)) {
+				String newToken = authService.renewToken(jws, validated);
+				response.addHeader(HttpHeaders.AUTHORIZATION, AUTH_PREFIX + newToken);
+				authMetrics.tokenRenewed();
+			}
+			else {
+				authMetrics.renewalSkipped();
+			}
 
 			// continue along the filter chain
 			chain.doFilter(request, response);
@@ -0,0 +1,141 @@
+package com.sample.api.service.auth;
+
+import java.security.Key;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.stereotype.Component;
+
+import com.sample.api.SampleApiProperties;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.Jws;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.MalformedJwtException;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+import io.jsonwebtoken.UnsupportedJwtException;
+import io.jsonwebtoken.io.Serializer;
+import io.jsonwebtoken.jackson.io.JacksonDeserializer;
+import io.jsonwebtoken.jackson.io.JacksonSerializer;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureException;
+
+/**
+ * AuthKeyring
+ *
+ * Holds the HMAC keys used to sign and verify tokens, along with a parser and serializer that are built once at startup.
+ * Tokens are signed with the current key and carry its id in the <code>kid</code> header, while any configured key can verify.
+ * This allows secrets to be rotated by first adding the new key everywhere, and then switching the signing key id.
+ * Tokens issued without a <code>kid</code> header are verified with the current signing key.
+ *
+ * @author Anthony DePalma
+ */
+@Component
+public class AuthKeyring {
+
+	// the id of the signing key
+	private final String signingKeyId;
+
+	// the signing key
+	private final Key signingKey;
+
+	// all keys that can verify a token by id
+	private final Map<String, Key> keys;
+
+	// the shared, thread safe parser
+	private final JwtParser parser;
+
+	// the shared, thread safe serializer
+	private final Serializer<Map<String, ?>> serializer;
+
+	// constructor
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	public AuthKeyring(SampleApiProperties properties) {
+		this.signingKeyId = properties.getJwtKeyId();
+		this.signingKey = createKey(properties.getJwtSecret());
+
+		// decode every verification key up front so no key is derived on the request path
+		Map<String, Key> keys = new HashMap<>();
+		properties.getJwtSecrets().forEach((id, secret) -> keys.put(id, createKey(secret)));
+		keys.put(signingKeyId, signingKey);
+		this.keys = Collections.unmodifiableMap(keys);
+
+		Map<String, Class<AuthClaim>> claims = Collections.singletonMap(AuthClaim.KEY, AuthClaim.class);
+
+		this.serializer = new JacksonSerializer<>();
+		this.parser = Jwts.parserBuilder()
+				.deserializeJsonWith(new JacksonDeserializer(claims))
+				.setSigningKeyResolver(new SigningKeyResolverAdapter() {
+					@Override
+					public Key resolveSigningKey(JwsHeader header, Claims claims) {
+						return getKey(header.getKeyId());
+					}
+				})
+				.build();
+	}
+
+	/**
+	 * Returns a new builder which will sign the token with the current signing key.
+	 *
+	 * @return JwtBuilder
+	 */
+	public JwtBuilder builder() {
+		return Jwts.builder()
+				.serializeToJsonWith(serializer)
+				.setHeaderParam(JwsHeader.KEY_ID, signingKeyId)
+				.signWith(signingKey);
+	}
+
+	/**
+	 * Parses and verifies a token.
+	 *
+	 * @param token
+	 * @throws ExpiredJwtException
+	 * @throws UnsupportedJwtException
+	 * @throws MalformedJwtException
+	 * @throws SignatureException
+	 * @throws IllegalArgumentException
+	 * @return Jws<Claims>
+	 */
+	public Jws<Claims> parse(String token) throws ExpiredJwtException, UnsupportedJwtException, MalformedJwtException, SignatureException, IllegalArgumentException {
+		return parser.parseClaimsJws(token);
+	}
+
+	/**
+	 * Returns the key with the given id, or the signing key if the id is null.
+	 *
+	 * @param keyId
+	 * @throws SignatureException
+	 * @return Key
+	 */
+	private Key getKey(String keyId) throws SignatureException {
+
+		// tokens issued before key ids were introduced are verified with the signing key
+		if(keyId == null)
+			return signingKey;
+
+		Key key = keys.get(keyId);
+
+		if(key == null)
+			throw new SignatureException(String.format("Unknown key id [%s]", keyId));
+
+		return key;
+	}
+
+	/**
+	 * Creates the HMAC key using a base 64 encoded secret.
+	 *
+	 * @param secret
+	 * @return Key
+	 */
+	private static Key createKey(String secret) {
+		return Keys.hmacShaKeyFor(Base64.getDecoder().decode(secret));
+	}
+
+}
@@ -0,0 +1,107 @@
+package com.sample.api.service.auth;
+
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+
+/**
+ * AuthMetrics
+ *
+ * Holds the meters recorded while authenticating requests.
+ * Meters are registered once so the request path only increments them.
+ *
+ * @author Anthony DePalma
+ */
+@Component
+public class AuthMetrics {
+
+	// token renewal counters
+	private final Counter tokensRenewed;
+	private final Counter renewalsSkipped;
+
+	// token cache counters
+	private final Counter tokenCacheHits;
+	private final Counter tokenCacheMisses;
+	private final Counter tokensRejected;
+
+	// login throttle counters
+	private final Counter emailLoginsThrottled;
+	private final Counter addressLoginsThrottled;
+
+	// the registry
+	private final MeterRegistry registry;
+
+	// constructor
+	public AuthMetrics(MeterRegistry registry) {
+		this.registry = registry;
+		this.tokensRenewed = registry.counter("auth.token.renewals", "result", "renewed");
+		this.renewalsSkipped = registry.counter("auth.token.renewals", "result", "skipped");
+		this.tokenCacheHits = registry.counter("auth.token.cache", "result", "hit");
+		this.tokenCacheMisses = registry.counter("auth.token.cache", "result", "miss");
+		this.tokensRejected = registry.counter("auth.token.cache", "result", "reject");
+		this.emailLoginsThrottled = registry.counter("auth.login.throttled", "key", "email");
+		this.addressLoginsThrottled = registry.counter("auth.login.throttled", "key", "address");
+	}
+
+	/**
+	 * Registers a gauge reporting the estimated size of a cache.
+	 *
+	 * @param name
+	 * @param cache
+	 */
+	public void gaugeCacheSize(String name, Cache<?, ?> cache) {
+		registry.gauge("auth.cache.size", Tags.of("cache", name), cache, Cache::estimatedSize);
+	}
+
+	/**
+	 * Records a token that was renewed.
+	 */
+	public void tokenRenewed() {
+		tokensRenewed.increment();
+	}
+
+	/**
+	 * Records a token that was passed through without renewal.
+	 */
+	public void renewalSkipped() {
+		renewalsSkipped.increment();
+	}
+
+	/**
+	 * Records a token found in the verified token cache.
+	 */
+	public void tokenCacheHit() {
+		tokenCacheHits.increment();
+	}
+
+	/**
+	 * Records a token that had to be verified.
+	 */
+	public void tokenCacheMiss() {
+		tokenCacheMisses.increment();
+	}
+
+	/**
+	 * Records a token rejected without verification.
+	 */
+	public void tokenRejected() {
+		tokensRejected.increment();
+	}
+
+	/**
+	 * Records a login attempt rejected by the throttle.
+	 *
+	 * @param key either email or address
+	 */
+	public void loginThrottled(String key) {
+		if("email".equals(key))
+			emailLoginsThrottled.increment();
+		else
+			addressLoginsThrottled.increment();
+	}
+
+}
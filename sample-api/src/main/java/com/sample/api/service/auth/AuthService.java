@@ -1,13 +1,9 @@
 package com.sample.api.service.auth;
 
-import java.security.Key;
 import java.time.Instant;
 import java.util.Arrays;
-import java.util.Base64;
-import java.util.Collections;
 import java.util.Date;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
 
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -17,17 +13,15 @@ import org.springframework.stereotype.Component;
 
 import com.sample.api.SampleApiProperties;
 import com.sample.api.service.user.User;
+import com.sample.api.service.user.UserCredential;
 import com.sample.api.service.user.UserService;
 import com.sample.api.validation.Validator;
 
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.Jws;
-import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.MalformedJwtException;
 import io.jsonwebtoken.UnsupportedJwtException;
-import io.jsonwebtoken.jackson.io.JacksonDeserializer;
-import io.jsonwebtoken.security.Keys;
 import io.jsonwebtoken.security.SignatureException;
 import lombok.RequiredArgsConstructor;
 
@@ -44,19 +38,27 @@ public class AuthService {
 
 	// properties
 	private final SampleApiProperties properties;
+	private final AuthKeyring keyring;
+	private final AuthTokenCache tokenCache;
+	private final AuthThrottle throttle;
 	private final UserService userService;
 	private final Validator<Object> validator;
 
 	/**
 	 * Returns a token if the request was valid.
+	 * Attempts are throttled per email and remote address before the user is authenticated.
 	 *
 	 * @param request
+	 * @param remoteAddress
 	 */
-	public String getToken(AuthRequest request) {
+	public String getToken(AuthRequest request, String remoteAddress) {
 
 		// validate the request
 		validator.validate(request);
 
+		// reject the attempt if the email or address is making too many attempts
+		throttle.checkAttempt(request.getUsername(), remoteAddress);
+
 		// authenticate the user
 		User user = userService.authenticateUser(request.getUsername(), request.getPassword());
 
@@ -80,11 +82,10 @@ public class AuthService {
 		Instant expiration = now.plusSeconds(longExpire ? properties.getJwtExpLong() : properties.getJwtExpShort());
 		AuthClaim claim = new AuthClaim(user, longExpire);
 
-		return Jwts.builder()
+		return keyring.builder()
 				.setIssuedAt(Date.from(now))
 				.setExpiration(Date.from(expiration))
 				.claim(AuthClaim.KEY, claim)
-				.signWith(getKey())
 				.compact();
 	}
 
@@ -100,41 +101,73 @@ public class AuthService {
 		Instant expiration = Instant.now().plusSeconds(claim.isLongExpiration() ? properties.getJwtExpLong() : properties.getJwtExpShort());
 		Date issuedAt = renewIssuedAt ? Date.from(Instant.now()) : jws.getBody().getIssuedAt();
 
-		return Jwts.builder()
+		return keyring.builder()
 				.setIssuedAt(issuedAt)
 				.setExpiration(Date.from(expiration))
 				.claim(AuthClaim.KEY, claim)
-				.signWith(getKey())
 				.compact();
 	}
 
+	/**
+	 * Returns true if the token should be renewed.
+	 * Tokens are renewed once the configured fraction of their lifetime has passed since they were last signed,
+	 * or when they were just validated against the database so the issuedAt date can be reset.
+	 * All other tokens are passed through unchanged, which avoids signing a new token on every request.
+	 *
+	 * @param jws
+	 * @param validated
+	 * @return boolean
+	 */
+	public boolean isRenewable(Jws<Claims> jws, boolean validated) {
+
+		// validated tokens are always renewed to push back the next validation
+		if(validated) {
+			return true;
+		}
+
+		// otherwise renew once the threshold of the lifetime has passed
+		AuthClaim claim = jws.getBody().get(AuthClaim.KEY, AuthClaim.class);
+		long lifetime = claim.isLongExpiration() ? properties.getJwtExpLong() : properties.getJwtExpShort();
+		long remaining = Math.round(lifetime * (1 - properties.getJwtRenewThreshold()));
+		Instant renewOn = jws.getBody().getExpiration().toInstant().minusSeconds(remaining);
+
+		return !renewOn.isAfter(Instant.now());
+	}
+
 	/**
 	 * Validates a token by checking the user against the database.
-	 * This is not done on every request, but rather during regular short expiration intervals.
+	 * Revoked tokens are rejected on every request from memory, while the database is only checked during regular validation intervals.
+	 * The user details are always read from the database, so a token revoked on another instance is rejected here and never renewed.
 	 *
 	 * @param jws
 	 * @return Optional<Boolean> which will be empty if validation was not performed
 	 */
 	public Optional<Boolean> validateToken(Jws<Claims> jws) {
+		AuthClaim claim = jws.getBody().get(AuthClaim.KEY, AuthClaim.class);
 		Instant issuedAt = jws.getBody().getIssuedAt().toInstant();
-		Instant validateOn = issuedAt.plusSeconds(properties.getJwtExpShort());
+
+		// reject tokens issued before the user's tokens were revoked
+		if(userService.isRevoked(claim.getUserId(), issuedAt.getEpochSecond())) {
+			return Optional.of(Boolean.FALSE);
+		}
 
 		// if the validation deadline is still in the future, return an empty optional
+		Instant validateOn = issuedAt.plusSeconds(properties.getJwtValidateInterval());
+
 		if(validateOn.isAfter(Instant.now())) {
 			return Optional.empty();
 		}
 
-		// otherwise ensure that the user in the database is valid
-		AuthClaim claim = jws.getBody().get(AuthClaim.KEY, AuthClaim.class);
-		User user = userService.getById(claim.getUserId());
+		// otherwise ensure that the user credential is valid
+		UserCredential credential = userService.getCredential(claim.getUserId());
 
-		// if the claim doesn't match the user details, return false
-		if(!claim.isMatch(user)) {
+		// if the claim doesn't match the user details or was revoked, return false
+		if(!claim.isMatch(credential) || credential.isRevoked(issuedAt.getEpochSecond())) {
 			return Optional.of(Boolean.FALSE);
 		}
 
 		// return true if the user is enabled
-		return Optional.of(user.isEnabled());
+		return Optional.of(credential.isEnabled());
 	}
 
 	/**
@@ -152,6 +185,7 @@ public class AuthService {
 
 	/**
 	 * Parses a token.
+	 * Verified tokens are cached until they expire, and invalid tokens are rejected without verification once seen.
 	 *
 	 * @param token
 	 * @throws ExpiredJwtException
@@ -161,25 +195,8 @@ public class AuthService {
 	 * @throws IllegalArgumentException
 	 * @return Jws<Claims>
 	 */
-	@SuppressWarnings({ "rawtypes", "unchecked" })
 	public Jws<Claims> parseToken(String token) throws ExpiredJwtException, UnsupportedJwtException, MalformedJwtException, SignatureException, IllegalArgumentException {
-		Map<String, Class<AuthClaim>> map = Collections.singletonMap(AuthClaim.KEY, AuthClaim.class);
-
-		return Jwts.parserBuilder()
-				.deserializeJsonWith(new JacksonDeserializer(map))
-				.setSigningKey(getKey())
-				.build()
-				.parseClaimsJws(token);
-	}
-
-	/**
-	 * Creates the HMAC key using the jwt secret.
-	 *
-	 * @return Key
-	 */
-	private Key getKey() {
-		byte[] secret = Base64.getDecoder().decode(properties.getJwtSecret());
-		return Keys.hmacShaKeyFor(secret);
+		return tokenCache.parse(token, keyring::parse);
 	}
 
 }
\ No newline at end of file
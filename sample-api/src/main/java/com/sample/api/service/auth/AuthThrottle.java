@@ -0,0 +1,131 @@
+package com.sample.api.service.auth;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.sample.api.SampleApiProperties;
+import com.sample.api.service.ThrottleException;
+
+/**
+ * AuthThrottle
+ *
+ * Limits the rate of login attempts per email and per remote address, so bursts of credential stuffing
+ * are rejected before any database lookup or password hashing takes place.
+ *
+ * Each key has a rate limiter holding a single atomic timestamp, which is updated with a compare and set instead of a lock.
+ * Limiters are held in bounded caches and evicted once idle for long enough to have fully refilled,
+ * so eviction never changes the outcome of an attempt.
+ *
+ * @author Anthony DePalma
+ */
+@Component
+public class AuthThrottle {
+
+	// limiters by normalized email
+	private final Cache<String, RateLimiter> emailLimiters;
+
+	// limiters by remote address
+	private final Cache<String, RateLimiter> addressLimiters;
+
+	// limiter settings
+	private final long emailInterval;
+	private final long emailWindow;
+	private final long addressInterval;
+	private final long addressWindow;
+
+	// metrics
+	private final AuthMetrics authMetrics;
+
+	// constructor
+	public AuthThrottle(SampleApiProperties properties, AuthMetrics authMetrics) {
+		this.authMetrics = authMetrics;
+		this.emailInterval = TimeUnit.MINUTES.toNanos(1) / properties.getLoginEmailRate();
+		this.emailWindow = emailInterval * properties.getLoginEmailBurst();
+		this.addressInterval = TimeUnit.MINUTES.toNanos(1) / properties.getLoginAddressRate();
+		this.addressWindow = addressInterval * properties.getLoginAddressBurst();
+
+		this.emailLimiters = Caffeine.newBuilder()
+				.maximumSize(properties.getLoginThrottleSize())
+				.expireAfterAccess(Duration.ofNanos(emailWindow))
+				.build();
+		this.addressLimiters = Caffeine.newBuilder()
+				.maximumSize(properties.getLoginThrottleSize())
+				.expireAfterAccess(Duration.ofNanos(addressWindow))
+				.build();
+	}
+
+	/**
+	 * Records a login attempt, or throws a ThrottleException if either the email or the remote address exceeded its rate.
+	 *
+	 * @param email
+	 * @param remoteAddress
+	 * @throws ThrottleException
+	 */
+	public void checkAttempt(String email, String remoteAddress) throws ThrottleException {
+
+		if(remoteAddress != null && !acquire(addressLimiters, remoteAddress, addressInterval, addressWindow)) {
+			authMetrics.loginThrottled("address");
+			throw new ThrottleException(String.format("Too many login attempts from [%s]", remoteAddress));
+		}
+
+		if(email != null && !acquire(emailLimiters, email.toLowerCase(Locale.ROOT), emailInterval, emailWindow)) {
+			authMetrics.loginThrottled("email");
+			throw new ThrottleException(String.format("Too many login attempts for [%s]", email));
+		}
+	}
+
+	/**
+	 * Acquires a permit from the limiter of the given key.
+	 *
+	 * @param limiters
+	 * @param key
+	 * @param interval
+	 * @param window
+	 * @return boolean
+	 */
+	private static boolean acquire(Cache<String, RateLimiter> limiters, String key, long interval, long window) {
+		return limiters.get(key, (k) -> new RateLimiter()).tryAcquire(interval, window);
+	}
+
+	/**
+	 * RateLimiter
+	 *
+	 * Generic cell rate limiter, which tracks the theoretical arrival time of the next permit.
+	 * A permit is granted while the arrival time stays within the burst window of the current time.
+	 */
+	private static class RateLimiter {
+
+		// the theoretical arrival time in nanos
+		private final AtomicLong arrival = new AtomicLong(System.nanoTime());
+
+		/**
+		 * Tries to acquire a permit.
+		 *
+		 * @param interval the nanos between permits
+		 * @param window the nanos of the burst window
+		 * @return boolean
+		 */
+		boolean tryAcquire(long interval, long window) {
+			long now = System.nanoTime();
+
+			while(true) {
+				long current = arrival.get();
+				long next = Math.max(current, now) + interval;
+
+				if(next - now > window)
+					return false;
+
+				if(arrival.compareAndSet(current, next))
+					return true;
+			}
+		}
+
+	}
+
+}
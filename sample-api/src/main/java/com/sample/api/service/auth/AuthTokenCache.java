@@ -0,0 +1,187 @@
+package com.sample.api.service.auth;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Date;
+import java.util.function.Function;
+
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import com.sample.api.SampleApiProperties;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jws;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.MalformedJwtException;
+
+/**
+ * AuthTokenCache
+ *
+ * Caches verified tokens by their digest until they expire, so a token sent repeatedly by the same client
+ * is only verified and deserialized once. Tokens that fail verification are remembered for a short time,
+ * and tokens that are structurally invalid are rejected before any crypto runs.
+ *
+ * @author Anthony DePalma
+ */
+@Component
+public class AuthTokenCache {
+
+	// the maximum accepted length of a token
+	private static final int MAX_TOKEN_LENGTH = 4096;
+
+	// the cache of verified tokens
+	private final Cache<HashCode, Jws<Claims>> verifiedTokens;
+
+	// the cache of rejected tokens
+	private final Cache<HashCode, Boolean> rejectedTokens;
+
+	// metrics
+	private final AuthMetrics authMetrics;
+
+	// constructor
+	public AuthTokenCache(SampleApiProperties properties, AuthMetrics authMetrics) {
+		this.authMetrics = authMetrics;
+		this.verifiedTokens = Caffeine.newBuilder()
+				.maximumSize(properties.getJwtCacheSize())
+				.expireAfter(new TokenExpiry())
+				.build();
+		this.rejectedTokens = Caffeine.newBuilder()
+				.maximumSize(properties.getJwtRejectCacheSize())
+				.expireAfterWrite(Duration.ofSeconds(properties.getJwtRejectCacheExpiry()))
+				.build();
+
+		authMetrics.gaugeCacheSize("verified", verifiedTokens);
+		authMetrics.gaugeCacheSize("rejected", rejectedTokens);
+	}
+
+	/**
+	 * Returns a cached verified token, or parses the token with the given parser.
+	 * Any token the parser rejects is remembered, and rejected again without parsing until it is evicted.
+	 *
+	 * @param token
+	 * @param parser
+	 * @throws JwtException
+	 * @throws IllegalArgumentException
+	 * @return Jws<Claims>
+	 */
+	public Jws<Claims> parse(String token, Function<String, Jws<Claims>> parser) throws JwtException, IllegalArgumentException {
+
+		// reject anything that cannot be a signed token
+		if(!isWellFormed(token)) {
+			authMetrics.tokenRejected();
+			throw new MalformedJwtException("Malformed token");
+		}
+
+		HashCode digest = Hashing.sha256().hashString(token, StandardCharsets.US_ASCII);
+
+		// return the token if it was already verified
+		Jws<Claims> jws = verifiedTokens.getIfPresent(digest);
+
+		if(jws != null) {
+			authMetrics.tokenCacheHit();
+			return jws;
+		}
+
+		// reject the token if it previously failed verification
+		if(rejectedTokens.getIfPresent(digest) != null) {
+			authMetrics.tokenRejected();
+			throw new MalformedJwtException("Rejected token");
+		}
+
+		authMetrics.tokenCacheMiss();
+
+		try
+		{
+			jws = parser.apply(token);
+		}
+		catch(JwtException | IllegalArgumentException exception)
+		{
+			rejectedTokens.put(digest, Boolean.TRUE);
+			throw exception;
+		}
+
+		verifiedTokens.put(digest, jws);
+		return jws;
+	}
+
+	/**
+	 * Returns true if the token has the structure of a signed token,
+	 * which is three non empty base64url segments separated by periods.
+	 *
+	 * @param token
+	 * @return boolean
+	 */
+	static boolean isWellFormed(String token) {
+		if(token == null || token.isEmpty() || token.length() > MAX_TOKEN_LENGTH) {
+			return false;
+		}
+
+		int periods = 0;
+		char previous = '.';
+
+		for(int i = 0; i < token.length(); i++) {
+			char c = token.charAt(i);
+
+			if(c == '.') {
+
+				// segments can't be empty
+				if(previous == '.')
+					return false;
+
+				periods++;
+			}
+			else if(!isBase64Url(c)) {
+				return false;
+			}
+
+			previous = c;
+		}
+
+		return periods == 2 && previous != '.';
+	}
+
+	/**
+	 * Returns true if the character is in the base64url alphabet.
+	 *
+	 * @param c
+	 * @return boolean
+	 */
+	private static boolean isBase64Url(char c) {
+		return (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || c == '-' || c == '_';
+	}
+
+	/**
+	 * TokenExpiry
+	 *
+	 * Expires a cached token at its own expiration time.
+	 */
+	private static class TokenExpiry implements Expiry<HashCode, Jws<Claims>> {
+
+		@Override
+		public long expireAfterCreate(HashCode key, Jws<Claims> jws, long currentTime) {
+			Date expiration = jws.getBody().getExpiration();
+
+			if(expiration == null)
+				return 0;
+
+			return Math.max(0, Duration.ofMillis(expiration.getTime() - System.currentTimeMillis()).toNanos());
+		}
+
+		@Override
+		public long expireAfterUpdate(HashCode key, Jws<Claims> jws, long currentTime, long currentDuration) {
+			return expireAfterCreate(key, jws, currentTime);
+		}
+
+		@Override
+		public long expireAfterRead(HashCode key, Jws<Claims> jws, long currentTime, long currentDuration) {
+			return currentDuration;
+		}
+
+	}
+
+}
@@ -1,20 +1,30 @@
 package com.sample.api.service.email;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
 
 import javax.mail.internet.MimeMessage;
 import javax.persistence.Basic;
+import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.EnumType;
 import javax.persistence.Enumerated;
+import javax.persistence.FetchType;
 import javax.persistence.Index;
 import javax.persistence.Lob;
+import javax.persistence.ManyToOne;
 import javax.persistence.Table;
+import javax.persistence.Transient;
 
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.mail.javamail.MimeMessagePreparator;
 
+import com.google.common.hash.Hashing;
 import com.sample.api.service.AbstractEntity;
 import com.sun.istack.NotNull;
 
@@ -29,7 +39,9 @@ import lombok.Setter;
 @Getter
 @Setter
 @Entity
-@Table(indexes = {@Index(columnList = "correlationId, toAddress, template")})
+@Table(indexes = {
+		@Index(columnList = "dedupeKey", unique = true),
+		@Index(columnList = "status, timeScheduled")})
 public class Email extends AbstractEntity {
 
 	@NotNull
@@ -62,13 +74,48 @@ public class Email extends AbstractEntity {
 	@Basic
 	private String correlationId;
 
-	@Lob
-	@NotNull
+	// the key of an email sent once, which is unique so that only one such email can be inserted
+	@Basic
+	private String dedupeKey;
+
+	// the rendered body, which is stored in the body and only held in memory
+	@Transient
 	private String text;
 
+	// the content addressed body shared by equal emails, which is only loaded when the email is sent or viewed
+	@ManyToOne(fetch = FetchType.LAZY)
+	private EmailBody body;
+
+	// the body of an email saved before bodies were stored separately, which is moved to the body on startup
+	// the column was not null before, so an existing schema must be altered with db/email-body.sql before new emails can be saved
+	@Lob
+	@Column(name = "text")
+	private String legacyText;
+
 	@Basic
 	private boolean html;
 
+	// the delivery status, and the time after which a pending email may be sent
+	@Enumerated(EnumType.STRING)
+	private EmailStatus status;
+
+	@Basic
+	private Instant timeScheduled;
+
+	// the number of send attempts, and the error of the last failed attempt
+	@Basic
+	private int attempts;
+
+	@Basic
+	private String lastError;
+
+	// the dispatcher batch holding the email, and the time after which another dispatcher may reclaim it
+	@Basic
+	private String claimedBy;
+
+	@Basic
+	private Instant claimedUntil;
+
 	// constructor
 	public Email() {
 
@@ -84,12 +131,26 @@ public class Email extends AbstractEntity {
 		this.replyToAddress = email.replyToAddress;
 		this.replyToAlias = email.replyToAlias;
 		this.subject = email.subject;
-		this.text = email.text;
+		this.text = email.getText();
+		this.body = email.body;
 		this.template = email.template;
 		this.correlationId = email.correlationId;
 		this.html = email.html;
 	}
 
+	/**
+	 * Returns the rendered body, reading it from the stored body the first time it is needed.
+	 *
+	 * @return String
+	 */
+	public String getText() {
+
+		if(text == null)
+			text = body != null ? body.getText() : legacyText;
+
+		return text;
+	}
+
 	/**
 	 * Returns a MimeMessagePreparator from the email instance.
 	 *
@@ -113,6 +174,8 @@ public class Email extends AbstractEntity {
 				if(subject != null)
 					message.setSubject(subject);
 
+				String text = getText();
+
 				if(text != null)
 					message.setText(text, html);
 
@@ -131,6 +194,24 @@ public class Email extends AbstractEntity {
 		};
 	}
 
+	/**
+	 * Returns the dedupe key of the email, a SHA-256 hash of the template, the correlation id and the recipients.
+	 * Recipients are normalized, so the same addresses in another case or order give the same key.
+	 *
+	 * @return String
+	 */
+	String createDedupeKey() {
+		String recipients = Arrays.stream(StringUtils.defaultString(toAddress).split(","))
+				.map(address -> address.trim().toLowerCase(Locale.ROOT))
+				.filter(address -> !address.isEmpty())
+				.sorted()
+				.distinct()
+				.collect(Collectors.joining(","));
+
+		String key = String.join("\n", String.valueOf(template), StringUtils.defaultString(correlationId), recipients);
+		return Hashing.sha256().hashString(key, StandardCharsets.UTF_8).toString();
+	}
+
 	// delegate getters and setters
 	public String[] getToAddressArray() {
 		return StringUtils.split(toAddress, ",");
@@ -0,0 +1,161 @@
+package com.sample.api.service.email;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import javax.persistence.Basic;
+import javax.persistence.Entity;
+import javax.persistence.Lob;
+import javax.persistence.Transient;
+
+import org.hibernate.annotations.Immutable;
+import org.hibernate.annotations.NaturalId;
+
+import com.google.common.hash.Hashing;
+import com.sample.api.service.AbstractEntity;
+
+import lombok.Getter;
+
+/**
+ * EmailBody
+ *
+ * The rendered body of one or more emails, stored once for each distinct content and compressed with deflate.
+ * Bodies are identified by the SHA-256 hash of their content, so an email with the same body as an earlier one references it instead of storing it again.
+ *
+ * @author Anthony DePalma
+ */
+@Getter
+@Entity
+@Immutable
+public class EmailBody extends AbstractEntity {
+
+	// the hash of the content, which is unique
+	@NaturalId
+	private String hash;
+
+	// the deflated UTF-8 content
+	@Lob
+	private byte[] content;
+
+	// the bytes of the content before and after compression
+	@Basic
+	private long length;
+
+	@Basic
+	private long compressedLength;
+
+	// the inflated content, which is only inflated once
+	@Transient
+	private String text;
+
+	// constructor
+	public EmailBody() {
+
+	}
+
+	// constructor for a shell body to reference a stored body without querying its content
+	public EmailBody(UUID id) {
+		super(id);
+	}
+
+	// constructor
+	public EmailBody(String text) {
+		byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+		this.hash = hash(text);
+		this.content = deflate(bytes);
+		this.length = bytes.length;
+		this.compressedLength = content.length;
+		this.text = text;
+	}
+
+	/**
+	 * Returns the content, inflating it the first time it is read.
+	 *
+	 * @return String
+	 */
+	public String getText() {
+
+		if(text == null && content != null)
+			text = inflate(content);
+
+		return text;
+	}
+
+	/**
+	 * Returns the hash identifying a body with the given content.
+	 *
+	 * @param text
+	 * @return String
+	 */
+	public static String hash(String text) {
+		return Hashing.sha256().hashString(text, StandardCharsets.UTF_8).toString();
+	}
+
+	/**
+	 * Compresses bytes with deflate.
+	 *
+	 * @param bytes
+	 * @return byte[]
+	 */
+	private static byte[] deflate(byte[] bytes) {
+		Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+		ByteArrayOutputStream output = new ByteArrayOutputStream(bytes.length / 4 + 64);
+		byte[] buffer = new byte[8192];
+
+		try
+		{
+			deflater.setInput(bytes);
+			deflater.finish();
+
+			while(!deflater.finished())
+				output.write(buffer, 0, deflater.deflate(buffer));
+
+			return output.toByteArray();
+		}
+		finally
+		{
+			deflater.end();
+		}
+	}
+
+	/**
+	 * Decompresses deflated bytes into a string.
+	 *
+	 * @param bytes
+	 * @return String
+	 */
+	private static String inflate(byte[] bytes) {
+		Inflater inflater = new Inflater();
+		ByteArrayOutputStream output = new ByteArrayOutputStream(bytes.length * 4);
+		byte[] buffer = new byte[8192];
+
+		try
+		{
+			inflater.setInput(bytes);
+
+			while(!inflater.finished()) {
+				int count = inflater.inflate(buffer);
+
+				if(count == 0 && (inflater.needsInput() || inflater.needsDictionary()))
+					throw new IllegalStateException("Truncated email body");
+
+				output.write(buffer, 0, count);
+			}
+
+			return new String(output.toByteArray(), StandardCharsets.UTF_8);
+		}
+		catch(DataFormatException e)
+		{
+			throw new IllegalStateException("Corrupt email body", e);
+		}
+		finally
+		{
+			inflater.end();
+		}
+	}
+
+}
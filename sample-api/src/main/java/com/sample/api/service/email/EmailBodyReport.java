@@ -0,0 +1,37 @@
+package com.sample.api.service.email;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * EmailBodyReport
+ *
+ * The storage used by email bodies, compared with storing the body of every email in full.
+ *
+ * @author Anthony DePalma
+ */
+@Getter
+@RequiredArgsConstructor
+public class EmailBodyReport {
+
+	// the emails referencing a body, and the distinct bodies they reference
+	private final long emails;
+	private final long bodies;
+
+	// the bytes of the body of every email, and the bytes of the compressed distinct bodies
+	private final long textBytes;
+	private final long storedBytes;
+
+	// the emails still holding their own body
+	private final long legacyEmails;
+
+	/**
+	 * Returns the fraction of the body bytes saved by sharing and compressing bodies.
+	 *
+	 * @return double
+	 */
+	public double getSavings() {
+		return textBytes == 0 ? 0 : 1 - (double) storedBytes / textBytes;
+	}
+
+}
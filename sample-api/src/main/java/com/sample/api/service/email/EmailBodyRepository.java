@@ -0,0 +1,57 @@
+package com.sample.api.service.email;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Repository;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Projections;
+import com.sample.api.service.EntityRepository;
+
+/**
+ * EmailBodyRepository
+ *
+ * Provides common retrieval operations for entities.
+ *
+ * @author Anthony DePalma
+ */
+@Repository
+interface EmailBodyRepository extends EntityRepository<EmailBody> {
+
+	// logger
+	final Logger log = LoggerFactory.getLogger(EmailBodyRepository.class);
+
+	/**
+	 * Finds the id of the body with the given hash, without loading its content.
+	 *
+	 * @param hash
+	 * @return Optional<UUID>
+	 */
+	public default Optional<UUID> findIdByHash(String hash) {
+		log.debug("Finding email body by hash [{}]", hash);
+		return Optional.ofNullable(select(QEmailBody.emailBody.id).where(QEmailBody.emailBody.hash.eq(hash)).fetchFirst());
+	}
+
+	/**
+	 * Finds the ids of the bodies with the given hashes, by hash.
+	 *
+	 * @param hashes
+	 * @return Map<String, UUID>
+	 */
+	public default Map<String, UUID> findIdsByHash(Collection<String> hashes) {
+		log.debug("Finding [{}] email bodies by hash", hashes.size());
+
+		return select(Projections.tuple(QEmailBody.emailBody.hash, QEmailBody.emailBody.id))
+				.where(QEmailBody.emailBody.hash.in(hashes))
+				.fetch()
+				.stream()
+				.collect(Collectors.toMap((Tuple t) -> t.get(QEmailBody.emailBody.hash), (Tuple t) -> t.get(QEmailBody.emailBody.id)));
+	}
+
+}
@@ -0,0 +1,164 @@
+package com.sample.api.service.email;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import javax.persistence.EntityNotFoundException;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * EmailBodyService
+ *
+ * Stores the bodies of emails by content, so that equal bodies are stored once, and moves the bodies of older emails into body storage.
+ *
+ * @author Anthony DePalma
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class EmailBodyService {
+
+	// the number of emails migrated in each transaction
+	private static final int MIGRATION_BATCH_SIZE = 1000;
+
+	// the number of conflicting batches after which the migration is left to the next startup
+	private static final int MAX_MIGRATION_CONFLICTS = 10;
+
+	// properties
+	private final EmailRepository emailRepository;
+	private final EmailBodyRepository emailBodyRepository;
+
+	/**
+	 * Returns the stored body with the given content, storing it if no email had the same body before.
+	 * A new body is inserted in the caller's transaction within a savepoint, so that a body stored concurrently by another email is found rather than failing the caller,
+	 * and a body is never left behind by an email that rolls back.
+	 *
+	 * @param text
+	 * @return EmailBody
+	 */
+	@Transactional
+	public EmailBody storeBody(String text) {
+		String hash = EmailBody.hash(text);
+		Optional<UUID> id = emailBodyRepository.findIdByHash(hash);
+
+		if(id.isPresent())
+			return new EmailBody(id.get());
+
+		EmailBody body = new EmailBody(text);
+
+		if(emailBodyRepository.insertIfAbsent(body))
+			return body;
+
+		log.debug("Email body [{}] was stored concurrently", hash);
+		return new EmailBody(emailBodyRepository.findIdByHash(hash)
+				.orElseThrow(() -> new EntityNotFoundException(String.format("No email body with hash [%s]", hash))));
+	}
+
+	/**
+	 * Moves the bodies of older emails once the application is ready, off the startup thread so a failure never stops the application.
+	 * This only moves the data, and an existing schema must be altered first with db/email-body.sql.
+	 */
+	@Async
+	@EventListener(ApplicationReadyEvent.class)
+	public void migrateBodiesOnStartup() {
+		migrateBodies();
+	}
+
+	/**
+	 * Moves the body of emails saved before bodies were stored separately into body storage, in batches.
+	 * Every instance migrates at startup, so a batch that conflicts with another instance is read again without the emails it moved.
+	 */
+	public void migrateBodies() {
+		int migrated = 0;
+		int conflicts = 0;
+
+		while(true) {
+			int count;
+
+			try
+			{
+				count = migrateBatch();
+			}
+			catch(OptimisticLockingFailureException | DataIntegrityViolationException e)
+			{
+				if(++conflicts > MAX_MIGRATION_CONFLICTS) {
+					log.warn("Stopped moving email bodies after [{}] conflicts with other instances, the remaining emails are moved on the next startup", conflicts);
+					break;
+				}
+
+				log.debug("Moving email bodies conflicted with another instance", e);
+				continue;
+			}
+
+			if(count == 0)
+				break;
+
+			migrated += count;
+		}
+
+		if(migrated > 0) {
+			EmailBodyReport report = getReport();
+			log.info("Moved the body of [{}] emails, [{}] emails now share [{}] bodies in [{}] of [{}] bytes, saving [{}%]",
+					migrated, report.getEmails(), report.getBodies(), report.getStoredBytes(), report.getTextBytes(), Math.round(report.getSavings() * 100));
+		}
+	}
+
+	/**
+	 * Moves the body of a batch of emails into body storage, and returns the number of emails moved.
+	 *
+	 * @return int
+	 */
+	@Transactional
+	int migrateBatch() {
+		List<Email> emails = emailRepository.findLegacyText(MIGRATION_BATCH_SIZE);
+
+		if(emails.isEmpty())
+			return 0;
+
+		Map<Email, String> hashes = new HashMap<>();
+		emails.forEach(email -> hashes.put(email, EmailBody.hash(email.getLegacyText())));
+
+		// reference the bodies stored already, and store each remaining body once
+		Map<String, EmailBody> bodies = new HashMap<>();
+		emailBodyRepository.findIdsByHash(hashes.values()).forEach((hash, id) -> bodies.put(hash, new EmailBody(id)));
+
+		for(Email email : emails) {
+			String text = email.getLegacyText();
+			email.setBody(bodies.computeIfAbsent(hashes.get(email), hash -> storeBody(text)));
+			email.setLegacyText(null);
+		}
+
+		log.debug("Moved the body of [{}] emails into [{}] bodies", emails.size(), bodies.size());
+		return emails.size();
+	}
+
+	/**
+	 * Returns the storage used by email bodies.
+	 *
+	 * @return EmailBodyReport
+	 */
+	@Transactional(readOnly = true)
+	public EmailBodyReport getReport() {
+		long emails = emailRepository.select(QEmail.email.count()).where(QEmail.email.body.isNotNull()).fetchOne();
+		Long textBytes = emailRepository.select(QEmail.email.body.length.sum()).fetchOne();
+		long legacyEmails = emailRepository.select(QEmail.email.count()).where(QEmail.email.legacyText.isNotNull()).fetchOne();
+		long bodies = emailBodyRepository.count();
+		Long storedBytes = emailBodyRepository.select(QEmailBody.emailBody.compressedLength.sum()).fetchOne();
+
+		return new EmailBodyReport(emails, bodies, textBytes == null ? 0 : textBytes, storedBytes == null ? 0 : storedBytes, legacyEmails);
+	}
+
+}
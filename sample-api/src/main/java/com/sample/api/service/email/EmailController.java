@@ -0,0 +1,29 @@
+package com.sample.api.service.email;
+
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * EmailController
+ *
+ * @author Anthony DePalma
+ */
+@RestController
+@RequestMapping("api/email")
+@RequiredArgsConstructor
+public class EmailController {
+
+	// properties
+	private final EmailBodyService emailBodyService;
+
+	@GetMapping("/body-report")
+	@PreAuthorize("hasRole('ROLE_ADMIN')")
+	public EmailBodyReport getBodyReport() {
+		return emailBodyService.getReport();
+	}
+
+}
@@ -0,0 +1,194 @@
+package com.sample.api.service.email;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+
+import javax.mail.internet.MimeMessage;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.sample.api.SampleApiProperties;
+import com.sample.api.service.UuidGenerator;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * EmailDispatcher
+ *
+ * Sends the emails written to the outbox by EmailService.
+ *
+ * Each batch claims pending emails with a conditional update, so several instances can share one database without sending an email twice.
+ * The claimed emails are sent outside of any transaction by the EmailSender, which reuses each connection to the mail server for a batch of messages,
+ * and failed emails are rescheduled with an exponential backoff until the maximum number of attempts.
+ * A claim is a lease, so the emails of an instance that stops mid batch are reclaimed once the lease expires.
+ *
+ * @author Anthony DePalma
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class EmailDispatcher {
+
+	// properties
+	private final EmailSender emailSender;
+	private final EmailRepository emailRepository;
+	private final EmailMetrics emailMetrics;
+	private final SampleApiProperties properties;
+
+	// the longest error message stored on an email
+	private static final int MAX_ERROR_LENGTH = 255;
+
+	/**
+	 * Dispatches batches until the outbox holds no more claimable emails.
+	 */
+	@Scheduled(fixedDelayString = "${app.email-dispatch-interval}")
+	public void dispatchAll() {
+
+		if(!properties.isEmailOutbox() || !properties.isEmailDispatch())
+			return;
+
+		while(dispatch() == properties.getEmailBatchSize());
+	}
+
+	/**
+	 * Claims, sends and records a batch of emails.
+	 * Batches of one instance run one at a time, while instances share the outbox through their claims.
+	 *
+	 * @return int the number of emails in the batch
+	 */
+	public synchronized int dispatch() {
+		String batchId = UuidGenerator.TIME_ORDERED.generate().toString();
+		List<Email> emails = claim(batchId);
+
+		if(emails.isEmpty())
+			return 0;
+
+		long start = System.nanoTime();
+		Map<Email, Exception> failures = send(emails);
+		complete(batchId, emails, failures);
+		emailMetrics.batchDispatched(emails.size(), System.nanoTime() - start);
+
+		log.debug("Dispatched batch [{}] of [{}] emails with [{}] failures", batchId, emails.size(), failures.size());
+		return emails.size();
+	}
+
+	/**
+	 * Claims a batch of emails.
+	 *
+	 * @param batchId
+	 * @return List<Email>
+	 */
+	@Transactional
+	List<Email> claim(String batchId) {
+		Instant now = Instant.now();
+		List<UUID> ids = emailRepository.findClaimableIds(now, properties.getEmailBatchSize());
+
+		if(ids.isEmpty())
+			return List.of();
+
+		emailRepository.claim(ids, batchId, now, now.plusMillis(properties.getEmailLease()));
+		return emailRepository.findClaimed(batchId);
+	}
+
+	/**
+	 * Sends a batch of emails, and returns the emails that failed with their errors.
+	 *
+	 * @param emails
+	 * @return Map<Email, Exception>
+	 */
+	private Map<Email, Exception> send(List<Email> emails) {
+		Map<Email, Exception> failures = new HashMap<>();
+		Map<MimeMessage, Email> messages = new LinkedHashMap<>();
+
+		// an email that cannot be prepared, such as one with an invalid address, fails on its own
+		for(Email email : emails) {
+			try
+			{
+				messages.put(emailSender.createMimeMessage(email), email);
+			}
+			catch(Exception e)
+			{
+				failures.put(email, e);
+			}
+		}
+
+		if(messages.isEmpty())
+			return failures;
+
+		if(!properties.isEmailSend()) {
+			for(Email email : messages.values())
+				log.info("Mocking email [{}]", ToStringBuilder.reflectionToString(email, ToStringStyle.MULTI_LINE_STYLE));
+
+			return failures;
+		}
+
+		// messages are sent in batches, each through one connection to the mail server
+		emailSender.sendAll(new ArrayList<>(messages.keySet()))
+				.forEach((message, exception) -> failures.put(messages.get(message), exception));
+
+		return failures;
+	}
+
+	/**
+	 * Records the outcome of a batch, marking sent emails and rescheduling or abandoning failed ones.
+	 *
+	 * @param batchId
+	 * @param emails
+	 * @param failures
+	 */
+	@Transactional
+	void complete(String batchId, List<Email> emails, Map<Email, Exception> failures) {
+		List<UUID> sent = emails.stream()
+				.filter(email -> !failures.containsKey(email))
+				.map(Email::getId)
+				.collect(Collectors.toList());
+
+		// emails whose lease expired mid batch may have been reclaimed, and are left to the new claim
+		if(!sent.isEmpty() && emailRepository.markSent(sent, batchId) < sent.size())
+			log.warn("Batch [{}] lost the lease of some sent emails", batchId);
+
+		emailMetrics.emailsSent(sent.size());
+
+		for(Map.Entry<Email, Exception> failure : failures.entrySet()) {
+			Email email = failure.getKey();
+			int attempts = email.getAttempts() + 1;
+			String error = StringUtils.abbreviate(String.valueOf(failure.getValue().getMessage()), MAX_ERROR_LENGTH);
+			log.warn("Failed to send email [{}] on attempt [{}]: {}", email.getId(), attempts, error);
+
+			if(attempts >= properties.getEmailMaxAttempts()) {
+				emailRepository.markFailed(email.getId(), batchId, EmailStatus.FAILED, email.getTimeScheduled(), error);
+				emailMetrics.emailFailed();
+				continue;
+			}
+
+			emailRepository.markFailed(email.getId(), batchId, EmailStatus.PENDING, Instant.now().plusMillis(backoff(attempts)), error);
+			emailMetrics.emailRetried();
+		}
+	}
+
+	/**
+	 * Returns the millis before the next attempt, doubled after every attempt up to the maximum,
+	 * with jitter so that emails failed by the same outage are not all retried at once.
+	 *
+	 * @param attempts
+	 * @return long
+	 */
+	private long backoff(int attempts) {
+		long backoff = Math.min(properties.getEmailRetryBackoff() << Math.min(attempts - 1, 30), properties.getEmailRetryBackoffMax());
+		return ThreadLocalRandom.current().nextLong(backoff / 2, backoff + 1);
+	}
+
+}
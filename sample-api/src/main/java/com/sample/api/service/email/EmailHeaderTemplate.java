@@ -0,0 +1,332 @@
+package com.sample.api.service.email;
+
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.beanutils.BeanUtils;
+import org.apache.commons.beanutils.MethodUtils;
+import org.apache.commons.beanutils.PropertyUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.text.StringSubstitutor;
+
+/**
+ * EmailHeaderTemplate
+ *
+ * A header value from the message source, compiled once into literal and variable segments so that rendering is a concatenation.
+ * Variables are property paths into the context, such as ${user.email}, read through getters cached by each variable.
+ *
+ * Values using any other substitution syntax, such as escapes, defaults or nested variables, are rendered by a StringSubstitutor
+ * as before, and so are values whose variables resolve to further variables. A variable that cannot be resolved is left as is.
+ *
+ * @author Anthony DePalma
+ */
+final class EmailHeaderTemplate {
+
+	// the variable syntax of the string substitutor
+	private static final String PREFIX = "${";
+	private static final String SUFFIX = "}";
+
+	// a template for a missing value
+	private static final EmailHeaderTemplate NULL = new EmailHeaderTemplate(null, null);
+
+	// properties
+	private final String value;
+	private final Segment[] segments;
+
+	// constructor
+	private EmailHeaderTemplate(String value, Segment[] segments) {
+		this.value = value;
+		this.segments = segments;
+	}
+
+	/**
+	 * Compiles a header value, which may be null.
+	 *
+	 * @param value
+	 * @return EmailHeaderTemplate
+	 */
+	static EmailHeaderTemplate compile(String value) {
+
+		if(value == null)
+			return NULL;
+
+		List<Segment> segments = new ArrayList<>();
+		int position = 0;
+
+		while(position < value.length()) {
+			int start = value.indexOf(PREFIX, position);
+			int end = start < 0 ? -1 : value.indexOf(SUFFIX, start + PREFIX.length());
+
+			// the remainder holds no complete variable
+			if(end < 0) {
+				segments.add(new Literal(value.substring(position)));
+				break;
+			}
+
+			String literal = value.substring(position, start);
+			String name = value.substring(start + PREFIX.length(), end);
+
+			// leave any other syntax to the string substitutor
+			if(literal.endsWith("$") || !isPropertyPath(name))
+				return new EmailHeaderTemplate(value, null);
+
+			if(!literal.isEmpty())
+				segments.add(new Literal(literal));
+
+			segments.add(new Variable(name));
+			position = end + SUFFIX.length();
+		}
+
+		return new EmailHeaderTemplate(value, segments.toArray(Segment[]::new));
+	}
+
+	/**
+	 * Renders the header with the variables of the context.
+	 *
+	 * @param context
+	 * @return String
+	 */
+	String render(Map<String, ?> context) {
+
+		if(segments == null)
+			return substitute(value, context);
+
+		StringBuilder builder = new StringBuilder(value.length() + 32);
+
+		for(Segment segment : segments) {
+			if(!segment.append(builder, context))
+				return substitute(value, context);
+		}
+
+		return builder.toString();
+	}
+
+	/**
+	 * Substitutes the variables of a value through a string substitutor, reading each variable by its bean property path.
+	 *
+	 * @param value
+	 * @param context
+	 * @return String
+	 */
+	static String substitute(String value, Map<String, ?> context) {
+		StringSubstitutor stringSubstitutor = new StringSubstitutor((k) -> {
+			try
+			{
+				return BeanUtils.getProperty(context, k);
+			}
+			catch(Exception e)
+			{
+				return null;
+			}
+		});
+
+		return stringSubstitutor.replace(value);
+	}
+
+	/**
+	 * Returns true if the name is a simple property path, without indexed or mapped properties.
+	 *
+	 * @param name
+	 * @return boolean
+	 */
+	private static boolean isPropertyPath(String name) {
+
+		if(name.isEmpty() || name.startsWith(".") || name.endsWith(".") || name.contains(".."))
+			return false;
+
+		for(int i = 0; i < name.length(); i++) {
+			char c = name.charAt(i);
+
+			if(c == '$' || (c != '.' && !Character.isJavaIdentifierPart(c)))
+				return false;
+		}
+
+		return true;
+	}
+
+	/**
+	 * Segment
+	 *
+	 * A part of a compiled header.
+	 */
+	private interface Segment {
+
+		/**
+		 * Appends the segment, or returns false if the header must be rendered by the string substitutor.
+		 *
+		 * @param builder
+		 * @param context
+		 * @return boolean
+		 */
+		boolean append(StringBuilder builder, Map<String, ?> context);
+
+	}
+
+	/**
+	 * Literal
+	 *
+	 * Text copied as is.
+	 */
+	private static final class Literal implements Segment {
+
+		// properties
+		private final String text;
+
+		// constructor
+		Literal(String text) {
+			this.text = text;
+		}
+
+		@Override
+		public boolean append(StringBuilder builder, Map<String, ?> context) {
+			builder.append(text);
+			return true;
+		}
+
+	}
+
+	/**
+	 * Variable
+	 *
+	 * A property path read from the context, with the getter of each step cached for the class it was last read from.
+	 * Getters are immutable, so threads racing to cache one only repeat the lookup.
+	 */
+	private static final class Variable implements Segment {
+
+		// properties
+		private final String name;
+		private final String[] path;
+		private final Getter[] getters;
+
+		// constructor
+		Variable(String name) {
+			this.name = name;
+			this.path = StringUtils.split(name, '.');
+			this.getters = new Getter[path.length];
+		}
+
+		@Override
+		public boolean append(StringBuilder builder, Map<String, ?> context) {
+			String resolved = resolve(context);
+
+			// unresolved variables are kept, and resolved variables holding variables are substituted again
+			if(resolved == null)
+				builder.append(PREFIX).append(name).append(SUFFIX);
+			else if(resolved.contains(PREFIX))
+				return false;
+			else
+				builder.append(resolved);
+
+			return true;
+		}
+
+		/**
+		 * Resolves the property path and converts it to a string like BeanUtils, or returns null if it cannot be resolved.
+		 *
+		 * @param context
+		 * @return String
+		 */
+		private String resolve(Map<String, ?> context) {
+			Object value = context;
+
+			for(int i = 0; i < path.length && value != null; i++)
+				value = read(i, value);
+
+			if(value != null && value.getClass().isArray())
+				value = Array.getLength(value) > 0 ? Array.get(value, 0) : null;
+
+			return value == null ? null : value.toString();
+		}
+
+		/**
+		 * Reads a step of the property path, from a map by key or from a bean by its getter.
+		 *
+		 * @param step
+		 * @param bean
+		 * @return Object
+		 */
+		private Object read(int step, Object bean) {
+
+			if(bean instanceof Map)
+				return ((Map<?, ?>) bean).get(path[step]);
+
+			Getter getter = getters[step];
+
+			if(getter == null || getter.type != bean.getClass()) {
+				getter = new Getter(bean, path[step]);
+				getters[step] = getter;
+			}
+
+			return getter.invoke(bean);
+		}
+
+	}
+
+	/**
+	 * Getter
+	 *
+	 * The accessible getter of a property for one class, found the way BeanUtils finds it, which is null if the property cannot be read.
+	 */
+	private static final class Getter {
+
+		// properties
+		private final Class<?> type;
+		private final Method method;
+
+		// constructor
+		Getter(Object bean, String property) {
+			this.type = bean.getClass();
+			this.method = findMethod(bean, property);
+		}
+
+		/**
+		 * Returns the property value, or null if it cannot be read.
+		 *
+		 * @param bean
+		 * @return Object
+		 */
+		Object invoke(Object bean) {
+
+			if(method == null)
+				return null;
+
+			try
+			{
+				return method.invoke(bean);
+			}
+			catch(ReflectiveOperationException e)
+			{
+				return null;
+			}
+		}
+
+		/**
+		 * Finds the accessible getter of a property.
+		 *
+		 * @param bean
+		 * @param property
+		 * @return Method
+		 */
+		private static Method findMethod(Object bean, String property) {
+			try
+			{
+				PropertyDescriptor descriptor = PropertyUtils.getPropertyDescriptor(bean, property);
+
+				if(descriptor == null || descriptor.getReadMethod() == null)
+					return null;
+
+				return MethodUtils.getAccessibleMethod(bean.getClass(), descriptor.getReadMethod());
+			}
+			catch(ReflectiveOperationException e)
+			{
+				return null;
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,67 @@
+package com.sample.api.service.email;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.context.MessageSource;
+import org.springframework.stereotype.Component;
+
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+
+/**
+ * EmailHeaderTemplates
+ *
+ * Renders the headers of an email template, such as the addresses and subject, from values in the message source.
+ * Each value is read and compiled once for its template, property and locale, so rendering a header is a map lookup and a concatenation.
+ *
+ * @author Anthony DePalma
+ */
+@Component
+@RequiredArgsConstructor
+public class EmailHeaderTemplates {
+
+	// properties
+	private final MessageSource messageSource;
+
+	// the compiled headers
+	private final Map<HeaderKey, EmailHeaderTemplate> headers = new ConcurrentHashMap<>();
+
+	/**
+	 * Renders a header of a template with the variables of the context, or returns null if the template has no such header.
+	 *
+	 * @param template
+	 * @param property
+	 * @param context
+	 * @param locale
+	 * @return String
+	 */
+	public String render(EmailTemplate template, String property, Map<String, ?> context, Locale locale) {
+		return headers.computeIfAbsent(new HeaderKey(template, property, locale), this::compile).render(context);
+	}
+
+	/**
+	 * Reads and compiles a header from the message source.
+	 *
+	 * @param key
+	 * @return EmailHeaderTemplate
+	 */
+	private EmailHeaderTemplate compile(HeaderKey key) {
+		String code = String.format("emailTemplate.%s.%s", key.template.toLowerCamel(), key.property);
+		return EmailHeaderTemplate.compile(messageSource.getMessage(code, null, null, key.locale));
+	}
+
+	/**
+	 * HeaderKey
+	 *
+	 * The template, property and locale of a header.
+	 */
+	@Value
+	private static class HeaderKey {
+		EmailTemplate template;
+		String property;
+		Locale locale;
+	}
+
+}
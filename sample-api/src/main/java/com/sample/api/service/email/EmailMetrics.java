@@ -0,0 +1,75 @@
+package com.sample.api.service.email;
+
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * EmailMetrics
+ *
+ * Holds the meters recorded while dispatching emails from the outbox.
+ * The batch timer and size give the dispatch throughput, and the counters give the outcome of every email.
+ *
+ * @author Anthony DePalma
+ */
+@Component
+public class EmailMetrics {
+
+	// batch meters
+	private final Timer batchTimer;
+	private final DistributionSummary batchSize;
+
+	// email counters
+	private final Counter emailsSent;
+	private final Counter emailsRetried;
+	private final Counter emailsFailed;
+
+	// constructor
+	public EmailMetrics(MeterRegistry registry) {
+		this.batchTimer = registry.timer("email.dispatch.batch");
+		this.batchSize = DistributionSummary.builder("email.dispatch.batch.size").register(registry);
+		this.emailsSent = registry.counter("email.dispatch.emails", "result", "sent");
+		this.emailsRetried = registry.counter("email.dispatch.emails", "result", "retried");
+		this.emailsFailed = registry.counter("email.dispatch.emails", "result", "failed");
+	}
+
+	/**
+	 * Records a dispatched batch.
+	 *
+	 * @param size the number of emails in the batch
+	 * @param nanos the time spent sending and recording the batch
+	 */
+	public void batchDispatched(int size, long nanos) {
+		batchTimer.record(nanos, TimeUnit.NANOSECONDS);
+		batchSize.record(size);
+	}
+
+	/**
+	 * Records emails handed to the mail server.
+	 *
+	 * @param count
+	 */
+	public void emailsSent(int count) {
+		emailsSent.increment(count);
+	}
+
+	/**
+	 * Records an email that failed and will be retried.
+	 */
+	public void emailRetried() {
+		emailsRetried.increment();
+	}
+
+	/**
+	 * Records an email abandoned after its last attempt.
+	 */
+	public void emailFailed() {
+		emailsFailed.increment();
+	}
+
+}
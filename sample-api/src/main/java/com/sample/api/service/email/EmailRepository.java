@@ -1,10 +1,15 @@
 package com.sample.api.service.email;
 
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Repository;
 
-import com.querydsl.jpa.JPQLQuery;
+import com.querydsl.core.types.dsl.BooleanExpression;
 import com.sample.api.service.EntityRepository;
 
 /**
@@ -21,21 +26,126 @@ interface EmailRepository extends EntityRepository<Email> {
 	final Logger log = LoggerFactory.getLogger(EmailRepository.class);
 
 	/**
-	 * Returns true if an email was sent with the given template and the destination address.
+	 * Returns true if an email with the given dedupe key was sent, through a single probe of the unique dedupe key index.
 	 *
-	 * @param template
-	 * @param toAddress
-	 * @param correlationId
+	 * @param dedupeKey
 	 * @return boolean
 	 */
-	public default boolean isEmailSent(EmailTemplate template, String correlationId, String toAddress) {
-		log.debug("Is email sent by template [{}], correlationId [{}], and toAddress [{}]", template, correlationId, toAddress);
+	public default boolean isEmailSent(String dedupeKey) {
+		log.debug("Is email sent by dedupe key [{}]", dedupeKey);
+		return select(QEmail.email.id).where(QEmail.email.dedupeKey.eq(dedupeKey)).fetchFirst() != null;
+	}
+
+	/**
+	 * Finds the ids of emails that may be claimed, which are pending emails past their scheduled time
+	 * and emails whose dispatcher lease has expired, in the order they were scheduled.
+	 *
+	 * @param now
+	 * @param limit
+	 * @return List<UUID>
+	 */
+	public default List<UUID> findClaimableIds(Instant now, int limit) {
+		return select(QEmail.email.id)
+				.where(isClaimable(now))
+				.orderBy(QEmail.email.timeScheduled.asc())
+				.limit(limit)
+				.fetch();
+	}
+
+	/**
+	 * Claims the given emails for a dispatcher batch, skipping any that another dispatcher claimed first.
+	 * The claim is a conditional update, so each row is claimed by exactly one batch regardless of the number of instances.
+	 *
+	 * @param ids
+	 * @param claimedBy
+	 * @param now
+	 * @param claimedUntil
+	 * @return long the number of claimed emails
+	 */
+	public default long claim(Collection<UUID> ids, String claimedBy, Instant now, Instant claimedUntil) {
+		log.debug("Claiming [{}] emails for batch [{}]", ids.size(), claimedBy);
 
-		JPQLQuery<Email> query = select().where(QEmail.email.template.eq(template)
-				.and(QEmail.email.correlationId.contains(correlationId))
-				.and(QEmail.email.toAddress.contains(toAddress)));
+		return update()
+				.set(QEmail.email.status, EmailStatus.SENDING)
+				.set(QEmail.email.claimedBy, claimedBy)
+				.set(QEmail.email.claimedUntil, claimedUntil)
+				.where(QEmail.email.id.in(ids).and(isClaimable(now)))
+				.execute();
+	}
 
-		return query.fetchCount() > 0;
+	/**
+	 * Finds the emails claimed by a dispatcher batch.
+	 *
+	 * @param claimedBy
+	 * @return List<Email>
+	 */
+	public default List<Email> findClaimed(String claimedBy) {
+		return select()
+				.leftJoin(QEmail.email.body).fetchJoin()
+				.where(QEmail.email.claimedBy.eq(claimedBy)
+				.and(QEmail.email.status.eq(EmailStatus.SENDING)))
+				.fetch();
+	}
+
+	/**
+	 * Marks emails of a dispatcher batch as sent, unless their lease was lost to another dispatcher.
+	 *
+	 * @param ids
+	 * @param claimedBy
+	 * @return long the number of updated emails
+	 */
+	public default long markSent(Collection<UUID> ids, String claimedBy) {
+		return update()
+				.set(QEmail.email.status, EmailStatus.SENT)
+				.set(QEmail.email.attempts, QEmail.email.attempts.add(1))
+				.setNull(QEmail.email.lastError)
+				.setNull(QEmail.email.claimedBy)
+				.setNull(QEmail.email.claimedUntil)
+				.where(QEmail.email.id.in(ids).and(QEmail.email.claimedBy.eq(claimedBy)))
+				.execute();
+	}
+
+	/**
+	 * Marks an email of a dispatcher batch as failed, either to be retried at the scheduled time or abandoned.
+	 *
+	 * @param id
+	 * @param claimedBy
+	 * @param status
+	 * @param timeScheduled
+	 * @param lastError
+	 * @return long the number of updated emails
+	 */
+	public default long markFailed(UUID id, String claimedBy, EmailStatus status, Instant timeScheduled, String lastError) {
+		return update()
+				.set(QEmail.email.status, status)
+				.set(QEmail.email.timeScheduled, timeScheduled)
+				.set(QEmail.email.attempts, QEmail.email.attempts.add(1))
+				.set(QEmail.email.lastError, lastError)
+				.setNull(QEmail.email.claimedBy)
+				.setNull(QEmail.email.claimedUntil)
+				.where(QEmail.email.id.eq(id).and(QEmail.email.claimedBy.eq(claimedBy)))
+				.execute();
+	}
+
+	/**
+	 * Finds emails saved before bodies were stored separately.
+	 *
+	 * @param limit
+	 * @return List<Email>
+	 */
+	public default List<Email> findLegacyText(int limit) {
+		return select().where(QEmail.email.body.isNull().and(QEmail.email.legacyText.isNotNull())).limit(limit).fetch();
+	}
+
+	/**
+	 * Returns a predicate matching emails that may be claimed.
+	 *
+	 * @param now
+	 * @return BooleanExpression
+	 */
+	private static BooleanExpression isClaimable(Instant now) {
+		return QEmail.email.status.eq(EmailStatus.PENDING).and(QEmail.email.timeScheduled.loe(now))
+				.or(QEmail.email.status.eq(EmailStatus.SENDING).and(QEmail.email.claimedUntil.lt(now)));
 	}
 
-}
\ No newline at end of file
+}
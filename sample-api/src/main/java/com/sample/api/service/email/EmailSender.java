@@ -0,0 +1,252 @@
+package com.sample.api.service.email;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import javax.mail.internet.MimeMessage;
+
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import com.google.common.collect.Lists;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * EmailSender
+ *
+ * Sends messages in batches, each through a single connection to the mail server, so the connection, TLS and authentication
+ * handshake is paid once per batch instead of once per message.
+ *
+ * Batches are either given by the caller, or grouped from queued messages: the first queued message waits up to the linger time
+ * for more to arrive, and the batch is sent once it is full or the linger time has passed.
+ *
+ * @author Anthony DePalma
+ */
+@Slf4j
+public class EmailSender {
+
+	// properties
+	private final JavaMailSender mailSender;
+	private final int batchSize;
+	private final long lingerNanos;
+	private final BlockingQueue<QueuedMessage> queue;
+	private final ExecutorService executor;
+
+	// metrics
+	private final DistributionSummary connectionMessages;
+	private final Timer connectionTimer;
+	private final Counter messagesSent;
+	private final Counter messagesFailed;
+	private final Counter rejections;
+
+	// constructor
+	public EmailSender(JavaMailSender mailSender, int batchSize, long lingerMillis, int queueSize, MeterRegistry registry) {
+		this.mailSender = mailSender;
+		this.batchSize = batchSize;
+		this.lingerNanos = TimeUnit.MILLISECONDS.toNanos(lingerMillis);
+		this.queue = new ArrayBlockingQueue<>(queueSize);
+		this.executor = Executors.newSingleThreadExecutor(new CustomizableThreadFactory("email-"));
+
+		this.connectionMessages = DistributionSummary.builder("email.send.connection.messages").register(registry);
+		this.connectionTimer = registry.timer("email.send.connection");
+		this.messagesSent = registry.counter("email.send.messages", "result", "sent");
+		this.messagesFailed = registry.counter("email.send.messages", "result", "failed");
+		this.rejections = registry.counter("email.send.rejections");
+		registry.gauge("email.send.queue.size", queue, BlockingQueue::size);
+
+		executor.execute(this::run);
+	}
+
+	/**
+	 * Creates a message from an email.
+	 *
+	 * @param email
+	 * @return MimeMessage
+	 * @throws Exception if the email cannot be prepared, such as for an invalid address
+	 */
+	public MimeMessage createMimeMessage(Email email) throws Exception {
+		MimeMessage message = mailSender.createMimeMessage();
+		email.toMimeMessagePreparator().prepare(message);
+		return message;
+	}
+
+	/**
+	 * Queues a message to be sent with the next batch, and returns a future completed once it is sent.
+	 * The future fails immediately if the queue is full.
+	 *
+	 * @param message
+	 * @return CompletableFuture<Void>
+	 */
+	public CompletableFuture<Void> send(MimeMessage message) {
+		QueuedMessage queued = new QueuedMessage(message);
+
+		if(!queue.offer(queued)) {
+			rejections.increment();
+			queued.future.completeExceptionally(new MailSendException("The email queue is full"));
+		}
+
+		return queued.future;
+	}
+
+	/**
+	 * Sends messages in batches of at most the batch size, and returns the messages that failed with their errors.
+	 *
+	 * @param messages
+	 * @return Map<MimeMessage, Exception>
+	 */
+	public Map<MimeMessage, Exception> sendAll(List<MimeMessage> messages) {
+		Map<MimeMessage, Exception> failures = new HashMap<>();
+
+		for(List<MimeMessage> batch : Lists.partition(messages, batchSize))
+			failures.putAll(sendBatch(batch));
+
+		return failures;
+	}
+
+	/**
+	 * Sends a batch of messages through one connection.
+	 *
+	 * @param batch
+	 * @return Map<MimeMessage, Exception>
+	 */
+	private Map<MimeMessage, Exception> sendBatch(List<MimeMessage> batch) {
+		Map<MimeMessage, Exception> failures = new HashMap<>();
+		long start = System.nanoTime();
+
+		try
+		{
+			// the mail sender sends every message of the call through one connection
+			mailSender.send(batch.toArray(MimeMessage[]::new));
+		}
+		catch(MailSendException e)
+		{
+			// a lost connection fails every message that was not yet sent, otherwise only the rejected messages fail
+			if(e.getFailedMessages().isEmpty())
+				batch.forEach(message -> failures.put(message, e));
+
+			e.getFailedMessages().forEach((message, exception) -> failures.put((MimeMessage) message, exception));
+		}
+		catch(MailException e)
+		{
+			batch.forEach(message -> failures.put(message, e));
+		}
+
+		connectionTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+		connectionMessages.record(batch.size());
+		messagesSent.increment(batch.size() - failures.size());
+		messagesFailed.increment(failures.size());
+
+		log.debug("Sent [{}] messages through one connection with [{}] failures", batch.size(), failures.size());
+		return failures;
+	}
+
+	/**
+	 * Groups queued messages into batches and sends them until the sender is shut down.
+	 */
+	private void run() {
+		List<QueuedMessage> batch = new ArrayList<>(batchSize);
+
+		try
+		{
+			while(true) {
+				batch.add(queue.take());
+				long deadline = System.nanoTime() + lingerNanos;
+
+				while(batch.size() < batchSize) {
+					QueuedMessage queued = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+
+					if(queued == null)
+						break;
+
+					batch.add(queued);
+				}
+
+				flush(batch);
+			}
+		}
+		catch(InterruptedException e)
+		{
+			// send the messages queued before the shutdown
+			queue.drainTo(batch);
+			flush(batch);
+		}
+	}
+
+	/**
+	 * Sends and completes queued messages.
+	 *
+	 * @param batch
+	 */
+	private void flush(List<QueuedMessage> batch) {
+		try
+		{
+			Map<MimeMessage, Exception> failures = sendAll(batch.stream().map(queued -> queued.message).collect(Collectors.toList()));
+
+			for(QueuedMessage queued : batch) {
+				Exception failure = failures.get(queued.message);
+
+				if(failure == null)
+					queued.future.complete(null);
+				else
+					queued.future.completeExceptionally(failure);
+			}
+		}
+		catch(RuntimeException e)
+		{
+			batch.forEach(queued -> queued.future.completeExceptionally(e));
+		}
+
+		batch.clear();
+	}
+
+	/**
+	 * Stops grouping messages once the queued messages are sent.
+	 */
+	public void shutdown() {
+		executor.shutdownNow();
+
+		try
+		{
+			executor.awaitTermination(1, TimeUnit.MINUTES);
+		}
+		catch(InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * QueuedMessage
+	 *
+	 * A message waiting for a batch, and the future completed once it is sent.
+	 */
+	private static class QueuedMessage {
+
+		// properties
+		private final MimeMessage message;
+		private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+		// constructor
+		QueuedMessage(MimeMessage message) {
+			this.message = message;
+		}
+
+	}
+
+}
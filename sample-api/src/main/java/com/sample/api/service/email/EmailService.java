@@ -1,18 +1,17 @@
 package com.sample.api.service.email;
 
+import java.time.Instant;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
 
-import org.apache.commons.beanutils.BeanUtils;
 import org.apache.commons.lang3.builder.ToStringBuilder;
 import org.apache.commons.lang3.builder.ToStringStyle;
-import org.apache.commons.text.StringSubstitutor;
-import org.springframework.context.MessageSource;
-import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.thymeleaf.context.Context;
 import org.thymeleaf.spring5.SpringTemplateEngine;
 
@@ -32,41 +31,100 @@ import lombok.extern.slf4j.Slf4j;
 public class EmailService {
 
 	// properties
-	private final JavaMailSender mailSender;
+	private final EmailSender emailSender;
 	private final EmailRepository emailRepository;
+	private final EmailBodyService emailBodyService;
 	private final SpringTemplateEngine templateEngine;
-	private final MessageSource messageSource;
+	private final EmailHeaderTemplates headerTemplates;
 	private final SampleApiProperties properties;
 
 	/**
 	 * Sends and persists an email.
+	 * In outbox mode the email is only written as pending in the caller's transaction, and is sent by the EmailDispatcher once committed,
+	 * so an email is never sent for work that rolls back and a failed send is retried.
 	 *
 	 * @param email
 	 * @return Email
 	 */
 	@Transactional
 	public Email sendEmail(Email email) {
-		log.debug("Sending email [{}]", email);
-		sendEmailAsync(email);
-		return emailRepository.save(email);
+		Email saved = emailRepository.save(prepareEmail(email));
+		sendAfterCommit(saved);
+		return saved;
 	}
 
 	/**
 	 * Sends an email once as determined by the template, correlationId, and toAddress.
-	 * Returns true if the email was sent, false otherwise.
+	 * Returns the email if it was sent, or empty if an equal email was already sent.
+	 *
+	 * The email is inserted in the caller's transaction within a savepoint, where the unique dedupe key rejects an equal email inserted concurrently.
+	 * Like any other email, it is therefore only sent if the caller's transaction commits.
 	 *
 	 * @param email
 	 * @return Optional<Email>
 	 */
+	@Transactional
 	public Optional<Email> sendEmailOnce(Email email) {
-		log.debug("Is email sent by template [{}], correlationId [{}], and toAddress [{}]",
+		log.debug("Sending email once by template [{}], correlationId [{}], and toAddress [{}]",
 				email.getTemplate(), email.getCorrelationId(), email.getToAddress());
 
-		// if an email was found, return empty
-		if(emailRepository.isEmailSent(email.getTemplate(), email.getCorrelationId(), email.getToAddress()))
+		email.setDedupeKey(email.createDedupeKey());
+
+		// if an email was found, return empty without attempting the insert
+		if(emailRepository.isEmailSent(email.getDedupeKey()))
+			return Optional.empty();
+
+		if(!emailRepository.insertIfAbsent(prepareEmail(email))) {
+			log.debug("Email with dedupe key [{}] was sent concurrently", email.getDedupeKey());
 			return Optional.empty();
+		}
 
-		return Optional.of(sendEmail(email));
+		sendAfterCommit(email);
+		return Optional.of(email);
+	}
+
+	/**
+	 * Stores the body of an email and sets its status, either pending in outbox mode or sent otherwise.
+	 *
+	 * @param email
+	 * @return Email
+	 */
+	private Email prepareEmail(Email email) {
+
+		// equal bodies are stored once, so the body is referenced by its content
+		if(email.getBody() == null && email.getText() != null)
+			email.setBody(emailBodyService.storeBody(email.getText()));
+
+		if(properties.isEmailOutbox()) {
+			log.debug("Queueing email [{}]", email);
+			email.setStatus(EmailStatus.PENDING);
+			email.setTimeScheduled(Instant.now());
+			return email;
+		}
+
+		log.debug("Sending email [{}]", email);
+		email.setStatus(EmailStatus.SENT);
+		email.setAttempts(1);
+		return email;
+	}
+
+	/**
+	 * Sends an email once the caller's transaction commits, unless it is left to the EmailDispatcher in outbox mode.
+	 *
+	 * @param email
+	 */
+	private void sendAfterCommit(Email email) {
+
+		if(properties.isEmailOutbox())
+			return;
+
+		// send once the email is committed, so that neither rolled back work nor an email rejected by its dedupe key is sent
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCommit() {
+				sendEmailAsync(email);
+			}
+		});
 	}
 
 	@Async
@@ -77,8 +135,18 @@ public class EmailService {
 			return;
 		}
 
-		// send the email via the mail sender
-		mailSender.send(email.toMimeMessagePreparator());
+		// queue the email with the next batch of the email sender
+		try
+		{
+			emailSender.send(emailSender.createMimeMessage(email)).whenComplete((result, e) -> {
+				if(e != null)
+					log.warn("Failed to send email [{}]", email.getId(), e);
+			});
+		}
+		catch(Exception e)
+		{
+			log.warn("Failed to prepare email [{}]", email.getId(), e);
+		}
 	}
 
 	/**
@@ -136,20 +204,8 @@ public class EmailService {
 	 */
 	private String resolveProperty(EmailTemplate template, String property, Map<String, ?> context, Locale locale) {
 
-		// read the property value from the messages properties
-		String key = String.format("emailTemplate.%s.%s", template.toLowerCamel(), property);
-		String value = messageSource.getMessage(key, null, null, locale);
-
-		// subsitute any variables with parameters in the context map
-		StringSubstitutor stringSubstitutor = new StringSubstitutor((k) -> {
-			try {
-				return BeanUtils.getProperty(context, k);
-			} catch (Exception e) {
-				return null;
-			}
-		});
-
-		return stringSubstitutor.replace(value);
+		// read the compiled property value from the messages properties, and subsitute any variables with parameters in the context map
+		return headerTemplates.render(template, property, context, locale);
 	}
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,24 @@
+package com.sample.api.service.email;
+
+/**
+ * EmailStatus
+ *
+ * The delivery status of an email in the outbox.
+ *
+ * @author Anthony DePalma
+ */
+public enum EmailStatus {
+
+	// waiting to be claimed by a dispatcher once its scheduled time has passed
+	PENDING,
+
+	// claimed by a dispatcher until its lease expires
+	SENDING,
+
+	// handed to the mail server
+	SENT,
+
+	// abandoned after the maximum number of attempts
+	FAILED;
+
+}
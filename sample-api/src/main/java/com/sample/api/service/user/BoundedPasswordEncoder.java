@@ -0,0 +1,178 @@
+package com.sample.api.service.user;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import com.sample.api.service.ThrottleException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * BoundedPasswordEncoder
+ *
+ * Password encoder that runs the expensive hashing and matching of a delegate on a fixed size executor with a bounded queue.
+ * This keeps password work from occupying every request thread during a login storm, since at most the executor threads hash at once.
+ * When the queue is full the work is rejected immediately with a ThrottleException instead of waiting.
+ * Bulk encoding only uses half of the queue, so that imports never cause logins to be rejected.
+ *
+ * @author Anthony DePalma
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder {
+
+	// the delegate encoder
+	private final PasswordEncoder delegate;
+
+	// the hashing executor
+	private final ThreadPoolExecutor executor;
+
+	// the queue capacity kept free of bulk encoding
+	private final int reservedCapacity;
+
+	// metrics
+	private final Timer encodeTimer;
+	private final Timer matchTimer;
+	private final Counter rejections;
+
+	// constructor
+	public BoundedPasswordEncoder(PasswordEncoder delegate, int threads, int queueSize, MeterRegistry registry) {
+		this.delegate = delegate;
+		this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(queueSize), new CustomizableThreadFactory("password-"), new ThreadPoolExecutor.AbortPolicy());
+		this.reservedCapacity = queueSize / 2;
+
+		this.encodeTimer = registry.timer("password.hash", "operation", "encode");
+		this.matchTimer = registry.timer("password.hash", "operation", "match");
+		this.rejections = registry.counter("password.rejections");
+		registry.gauge("password.queue.size", executor, (e) -> e.getQueue().size());
+		registry.gauge("password.active", executor, ThreadPoolExecutor::getActiveCount);
+	}
+
+	@Override
+	public String encode(CharSequence rawPassword) {
+		return execute(() -> delegate.encode(rawPassword), encodeTimer);
+	}
+
+	/**
+	 * Encodes passwords in parallel on the executor, and returns the hashes in the same order.
+	 * Passwords are only queued while more than half of the queue is free, and are otherwise hashed by the calling thread.
+	 * This keeps the caller busy instead of rejecting the work, and leaves room in the queue for concurrent logins.
+	 *
+	 * @param rawPasswords
+	 * @return List<String>
+	 */
+	public List<String> encodeAll(List<? extends CharSequence> rawPasswords) {
+		List<Future<String>> futures = new ArrayList<>(rawPasswords.size());
+
+		for(CharSequence rawPassword : rawPasswords) {
+			Callable<String> task = () -> encodeTimer.recordCallable(() -> delegate.encode(rawPassword));
+			Future<String> future = null;
+
+			if(executor.getQueue().remainingCapacity() > reservedCapacity) {
+				try
+				{
+					future = executor.submit(task);
+				}
+				catch(RejectedExecutionException e)
+				{
+					// the queue filled up concurrently, so fall through to the calling thread
+				}
+			}
+
+			if(future == null)
+				future = CompletableFuture.completedFuture(encodeTimer.record(() -> delegate.encode(rawPassword)));
+
+			futures.add(future);
+		}
+
+		List<String> encodedPasswords = new ArrayList<>(futures.size());
+
+		for(Future<String> future : futures)
+			encodedPasswords.add(await(future));
+
+		return encodedPasswords;
+	}
+
+	@Override
+	public boolean matches(CharSequence rawPassword, String encodedPassword) {
+		return execute(() -> delegate.matches(rawPassword, encodedPassword), matchTimer);
+	}
+
+	@Override
+	public boolean upgradeEncoding(String encodedPassword) {
+		return delegate.upgradeEncoding(encodedPassword);
+	}
+
+	/**
+	 * Shuts down the executor, which is called when the application context is closed.
+	 */
+	public void shutdown() {
+		executor.shutdown();
+	}
+
+	/**
+	 * Runs a task on the executor and waits for the result.
+	 *
+	 * @param task
+	 * @param timer
+	 * @throws ThrottleException if the executor is saturated
+	 * @return T
+	 */
+	private <T> T execute(Callable<T> task, Timer timer) throws ThrottleException {
+		Future<T> future;
+
+		try
+		{
+			future = executor.submit(() -> timer.recordCallable(task));
+		}
+		catch(RejectedExecutionException e)
+		{
+			rejections.increment();
+			throw new ThrottleException("Password hashing is saturated");
+		}
+
+		return await(future);
+	}
+
+	/**
+	 * Waits for the result of a task.
+	 *
+	 * @param future
+	 * @return T
+	 */
+	private <T> T await(Future<T> future) {
+		try
+		{
+			return future.get();
+		}
+		catch(InterruptedException e)
+		{
+			future.cancel(true);
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(e);
+		}
+		catch(ExecutionException e)
+		{
+			if(e.getCause() instanceof RuntimeException)
+				throw (RuntimeException) e.getCause();
+
+			if(e.getCause() instanceof Error)
+				throw (Error) e.getCause();
+
+			throw new IllegalStateException(e.getCause());
+		}
+	}
+
+}
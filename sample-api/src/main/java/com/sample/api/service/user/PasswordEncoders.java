@@ -0,0 +1,97 @@
+package com.sample.api.service.user;
+
+import java.util.Map;
+
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * PasswordEncoders
+ *
+ * Factory methods for the application password encoder.
+ *
+ * @author Anthony DePalma
+ */
+@Slf4j
+public final class PasswordEncoders {
+
+	// the bcrypt encoder id
+	public static final String BCRYPT = "bcrypt";
+
+	// the pbkdf2 encoder id
+	public static final String PBKDF2 = "pbkdf2";
+
+	// the default bcrypt strength, which calibration never goes below
+	private static final int DEFAULT_STRENGTH = 10;
+
+	// the maximum bcrypt strength
+	private static final int MAX_STRENGTH = 31;
+
+	// the strength used to measure the hashing speed
+	private static final int SAMPLE_STRENGTH = 8;
+
+	// the number of samples used to measure the hashing speed
+	private static final int SAMPLES = 3;
+
+	// constructor
+	private PasswordEncoders() {
+
+	}
+
+	/**
+	 * Creates a delegating encoder which prefixes new hashes with the id of the encoder, such as <code>{bcrypt}</code>.
+	 * Hashes without a prefix are matched as bcrypt, and are reported as needing an upgrade along with any hash
+	 * produced by another encoder or with a lower bcrypt strength.
+	 *
+	 * @param id
+	 * @param strength
+	 * @return PasswordEncoder
+	 */
+	public static PasswordEncoder createDelegatingEncoder(String id, int strength) {
+		BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(strength);
+		Map<String, PasswordEncoder> encoders = Map.of(BCRYPT, bcrypt, PBKDF2, new Pbkdf2PasswordEncoder());
+
+		DelegatingPasswordEncoder encoder = new DelegatingPasswordEncoder(id, encoders);
+		encoder.setDefaultPasswordEncoderForMatches(bcrypt);
+		return encoder;
+	}
+
+	/**
+	 * Returns the bcrypt strength whose hashing time is closest to, without exceeding, the target on this machine.
+	 * Each increment of the strength doubles the hashing time, so the strength is extrapolated from a cheap sample.
+	 * A target of zero or less returns the default strength.
+	 *
+	 * @param targetMillis
+	 * @return int
+	 */
+	public static int calibrateStrength(long targetMillis) {
+		if(targetMillis <= 0)
+			return DEFAULT_STRENGTH;
+
+		BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(SAMPLE_STRENGTH);
+		encoder.encode("warmup");
+
+		// take the fastest sample to discount any scheduling noise
+		long sampleNanos = Long.MAX_VALUE;
+
+		for(int i = 0; i < SAMPLES; i++) {
+			long start = System.nanoTime();
+			encoder.encode("calibrate");
+			sampleNanos = Math.min(sampleNanos, System.nanoTime() - start);
+		}
+
+		double ratio = targetMillis * 1_000_000d / Math.max(sampleNanos, 1);
+		int strength = SAMPLE_STRENGTH + (int) Math.floor(Math.log(ratio) / Math.log(2));
+		strength = Math.max(DEFAULT_STRENGTH, Math.min(MAX_STRENGTH, strength));
+
+		log.info("Calibrated bcrypt strength [{}] for target [{}ms] from sample [{}ms] at strength [{}]",
+				strength, targetMillis, sampleNanos / 1_000_000d, SAMPLE_STRENGTH);
+
+		return strength;
+	}
+
+}
@@ -1,6 +1,7 @@
 package com.sample.api.service.user;
 
 import java.time.Instant;
+import java.util.Locale;
 import java.util.UUID;
 
 import javax.persistence.Basic;
@@ -13,8 +14,14 @@ import javax.persistence.Table;
 import javax.validation.constraints.Email;
 import javax.validation.constraints.NotNull;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+
+import com.sample.api.SampleApiEntityCache;
 import com.sample.api.service.AbstractEntity;
 
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 
@@ -23,14 +30,19 @@ import lombok.Setter;
  *
  * Stores the account data for a user in an application.
  *
+ * Users are cached by id in the second level cache of each instance, which isn't shared with other instances.
+ * A stale copy can only be saved if its version still matches, and logins and token validation always read the database instead.
+ *
  * @author Anthony DePalma
  */
 @Getter
 @Setter
 @Entity
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = SampleApiEntityCache.USER_REGION)
 @Table(indexes = {
 		@Index(columnList = "resetToken"),
-		@Index(columnList = "verifyToken")
+		@Index(columnList = "verifyToken"),
+		@Index(columnList = "timeCreated, id")
 })
 public class User extends AbstractEntity {
 
@@ -39,12 +51,18 @@ public class User extends AbstractEntity {
 	@Column(unique = true)
 	private String email;
 
+	@NaturalId(mutable = true)
+	@Setter(AccessLevel.NONE)
+	private String normalizedEmail;
+
 	@NotNull
 	private String password;
 
 	@NotNull
 	private Instant passwordDate;
 
+	private Instant revokeDate;
+
 	@NotNull
 	@Enumerated(EnumType.STRING)
 	private UserAuthority authority;
@@ -71,4 +89,24 @@ public class User extends AbstractEntity {
 		super(id);
 	}
 
-}
\ No newline at end of file
+	/**
+	 * Sets the email, along with the normalized email used for lookups.
+	 *
+	 * @param email
+	 */
+	public void setEmail(String email) {
+		this.email = email;
+		this.normalizedEmail = normalizeEmail(email);
+	}
+
+	/**
+	 * Returns the normalized form of an email, which is unique and indexed so lookups don't need to ignore case.
+	 *
+	 * @param email
+	 * @return String
+	 */
+	public static String normalizeEmail(String email) {
+		return email == null ? null : email.toLowerCase(Locale.ROOT);
+	}
+
+}
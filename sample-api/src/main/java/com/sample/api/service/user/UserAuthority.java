@@ -6,6 +6,7 @@ import org.springframework.security.core.GrantedAuthority;
  * UserAuthority
  *
  * Enumerated values of user authorities.
+ * The ordinal is encoded in tokens, so new values must only be appended.
  *
  * @author Anthony DePalma
  */
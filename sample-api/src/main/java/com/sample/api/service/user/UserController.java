@@ -1,18 +1,30 @@
 package com.sample.api.service.user;
 
-import java.util.List;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.Instant;
 import java.util.UUID;
 
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.sample.api.service.EntityPage;
 import com.sample.api.service.auth.AuthClaim;
 
 import lombok.RequiredArgsConstructor;
@@ -27,8 +39,16 @@ import lombok.RequiredArgsConstructor;
 @RequiredArgsConstructor
 public class UserController {
 
+	// the newline delimited json media type
+	private static final String NDJSON = "application/x-ndjson";
+
+	// the csv media type
+	private static final String CSV = "text/csv";
+
 	// properties
 	private final UserService userService;
+	private final UserImportService userImportService;
+	private final ObjectMapper objectMapper;
 
 	@PostMapping
 	public UserResponse createUser(@RequestBody UserRequest request) {
@@ -36,6 +56,18 @@ public class UserController {
 		return new UserResponse(user);
 	}
 
+	@PostMapping(path = "/import", consumes = NDJSON)
+	@PreAuthorize("hasRole('ROLE_ADMIN')")
+	public UserImportResponse importJson(InputStream inputStream) throws IOException {
+		return userImportService.importJson(inputStream);
+	}
+
+	@PostMapping(path = "/import", consumes = CSV)
+	@PreAuthorize("hasRole('ROLE_ADMIN')")
+	public UserImportResponse importCsv(InputStream inputStream) throws IOException {
+		return userImportService.importCsv(inputStream);
+	}
+
 	@PostMapping("/{id}/send-verify-email")
 	public void sendVerifyEmail(@PathVariable UUID id, @RequestBody UserEmailRequest request) {
 		userService.sendVerifyEmail(id);
@@ -65,10 +97,59 @@ public class UserController {
 		return new UserResponse(user);
 	}
 
+	@PostMapping("/{id}/revoke-tokens")
+	public void revokeTokens(@PathVariable UUID id) {
+		AuthClaim claim = AuthClaim.getCurrentClaim();
+
+		// only admins can modify other users
+		if(!claim.getAuthority().isAdmin() && !claim.getUserId().equals(id))
+			throw new AccessDeniedException(String.valueOf(id));
+
+		userService.revokeTokens(id);
+	}
+
+	@PutMapping("/domain/{domain}/enabled")
+	@PreAuthorize("hasRole('ROLE_ADMIN')")
+	public long updateEnabledByDomain(@PathVariable String domain, @RequestParam boolean enabled) {
+		return userService.updateEnabledByDomain(domain, enabled);
+	}
+
+	@DeleteMapping("/unverified")
+	@PreAuthorize("hasRole('ROLE_ADMIN')")
+	public long deleteUnverified(@RequestParam Instant createdBefore) {
+		return userService.deleteUnverified(createdBefore);
+	}
+
 	@GetMapping
 	@PreAuthorize("hasRole('ROLE_ADMIN')")
-	public List<User> getUsers() {
-		return userService.findUsers();
+	public EntityPage<UserResponse> getUsers(@RequestParam(required = false) String cursor, @RequestParam(required = false) Integer size) {
+		return userService.findUsers(cursor, size);
+	}
+
+	@GetMapping(produces = NDJSON)
+	@PreAuthorize("hasRole('ROLE_ADMIN')")
+	public ResponseEntity<StreamingResponseBody> streamUsers() {
+
+		// write each user as a line of json as it is read from the database, with the mapper of the json message converter
+		ObjectWriter ndjsonWriter = objectMapper.writer().withRootValueSeparator("\n");
+
+		StreamingResponseBody body = (outputStream) -> {
+			try(SequenceWriter writer = ndjsonWriter.writeValues(outputStream))
+			{
+				userService.streamUsers((user) -> {
+					try
+					{
+						writer.write(user);
+					}
+					catch(IOException e)
+					{
+						throw new UncheckedIOException(e);
+					}
+				});
+			}
+		};
+
+		return ResponseEntity.ok().contentType(MediaType.parseMediaType(NDJSON)).body(body);
 	}
 
 }
\ No newline at end of file
@@ -0,0 +1,58 @@
+package com.sample.api.service.user;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import lombok.Getter;
+
+/**
+ * UserCredential
+ *
+ * An immutable snapshot of the user details that a token is validated against.
+ * It is read as a projection of the few columns needed, instead of loading the user on every validation.
+ *
+ * @author Anthony DePalma
+ */
+@Getter
+public final class UserCredential {
+
+	// the user id
+	private final UUID userId;
+
+	// the user authority
+	private final UserAuthority authority;
+
+	// the password date in epoch seconds
+	private final long passwordDate;
+
+	// the revoke date in epoch seconds, or zero if tokens were never revoked
+	private final long revokeDate;
+
+	// true if the user is enabled
+	private final boolean enabled;
+
+	// constructor
+	public UserCredential(User user) {
+		this(user.getId(), user.getAuthority(), user.getPasswordDate(), user.getRevokeDate(), user.isEnabled());
+	}
+
+	// constructor for projections
+	public UserCredential(UUID userId, UserAuthority authority, Instant passwordDate, Instant revokeDate, boolean enabled) {
+		this.userId = userId;
+		this.authority = authority;
+		this.passwordDate = passwordDate.getEpochSecond();
+		this.revokeDate = revokeDate == null ? 0 : revokeDate.getEpochSecond();
+		this.enabled = enabled;
+	}
+
+	/**
+	 * Returns true if a token issued at the given epoch second was revoked.
+	 *
+	 * @param issuedAt
+	 * @return boolean
+	 */
+	public boolean isRevoked(long issuedAt) {
+		return issuedAt < revokeDate;
+	}
+
+}
@@ -0,0 +1,27 @@
+package com.sample.api.service.user;
+
+import java.util.List;
+
+import com.sample.api.validation.ValidationError;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * UserImportError
+ *
+ * The validation errors of a row that could not be imported.
+ *
+ * @author Anthony DePalma
+ */
+@Getter
+@RequiredArgsConstructor
+public class UserImportError {
+
+	// the line number of the row
+	private final long line;
+
+	// the errors of the row
+	private final List<ValidationError> errors;
+
+}
@@ -0,0 +1,45 @@
+package com.sample.api.service.user;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.sample.api.validation.ValidationException;
+
+import lombok.Getter;
+
+/**
+ * UserImportResponse
+ *
+ * The result of an import, with the number of users imported and the errors of every row that was skipped.
+ *
+ * @author Anthony DePalma
+ */
+@Getter
+public class UserImportResponse {
+
+	// the number of users imported
+	private int imported;
+
+	// the errors of the skipped rows
+	private final List<UserImportError> errors = new ArrayList<>();
+
+	/**
+	 * Adds to the number of users imported.
+	 *
+	 * @param count
+	 */
+	void addImported(int count) {
+		imported += count;
+	}
+
+	/**
+	 * Adds the errors of a skipped row.
+	 *
+	 * @param line
+	 * @param exception
+	 */
+	void addError(long line, ValidationException exception) {
+		errors.add(new UserImportError(line, exception.getErrors()));
+	}
+
+}
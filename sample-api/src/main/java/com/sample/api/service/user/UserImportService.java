@@ -0,0 +1,254 @@
+package com.sample.api.service.user;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import com.sample.api.SampleApiProperties;
+import com.sample.api.service.UuidGenerator;
+import com.sample.api.validation.ValidationException;
+import com.sample.api.validation.Validator;
+
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * UserImportService
+ *
+ * Imports users in bulk from newline delimited json or csv, one user request per line.
+ * Rows are read in chunks, and each chunk is validated together, hashed in parallel and inserted with jdbc batching in one transaction.
+ * Invalid rows are reported by line number and skipped, so a bad row never aborts the rest of the import.
+ *
+ * @author Anthony DePalma
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class UserImportService {
+
+	// the csv mapper
+	private static final CsvMapper CSV_MAPPER = new CsvMapper();
+
+	// the reader of the csv header
+	private static final ObjectReader CSV_HEADER_READER = CSV_MAPPER.readerFor(String[].class);
+
+	// properties
+	private final SampleApiProperties properties;
+	private final UserRepository userRepository;
+	private final BoundedPasswordEncoder passwordEncoder;
+	private final Validator<Object> validator;
+	private final ObjectMapper objectMapper;
+
+	/**
+	 * Imports users from newline delimited json, with a user request on each line.
+	 *
+	 * @param inputStream
+	 * @return UserImportResponse
+	 * @throws IOException
+	 */
+	public UserImportResponse importJson(InputStream inputStream) throws IOException {
+		log.debug("Importing users from json");
+		BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+		// read each row with the mapper of the json message converter
+		return importUsers(reader, 0, objectMapper.readerFor(UserRequest.class));
+	}
+
+	/**
+	 * Imports users from csv, with a header naming the user request field of each column.
+	 * Each row must be on a single line.
+	 *
+	 * @param inputStream
+	 * @return UserImportResponse
+	 * @throws IOException
+	 */
+	public UserImportResponse importCsv(InputStream inputStream) throws IOException {
+		log.debug("Importing users from csv");
+		BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+		String header = reader.readLine();
+
+		if(header == null || header.isBlank())
+			throw ValidationException.of("header", "notNull");
+
+		// read each row by the columns of the header
+		String[] columns = CSV_HEADER_READER.readValue(header);
+		CsvSchema schema = CsvSchema.builder().addColumns(List.of(columns), CsvSchema.ColumnType.STRING).build();
+		ObjectReader rowReader = CSV_MAPPER.readerFor(UserRequest.class).with(schema).without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+		return importUsers(reader, 1, rowReader);
+	}
+
+	/**
+	 * Reads the rows in chunks and imports each chunk.
+	 *
+	 * @param reader
+	 * @param lineNumber the number of lines already read
+	 * @param rowReader
+	 * @return UserImportResponse
+	 * @throws IOException
+	 */
+	private UserImportResponse importUsers(BufferedReader reader, long lineNumber, ObjectReader rowReader) throws IOException {
+		UserImportResponse response = new UserImportResponse();
+		Map<Long, String> chunk = new LinkedHashMap<>();
+		String line;
+
+		while((line = reader.readLine()) != null) {
+			lineNumber++;
+
+			if(line.isBlank())
+				continue;
+
+			chunk.put(lineNumber, line);
+
+			if(chunk.size() == properties.getImportChunkSize()) {
+				importChunk(chunk, rowReader, response);
+				chunk.clear();
+			}
+		}
+
+		if(!chunk.isEmpty())
+			importChunk(chunk, rowReader, response);
+
+		response.getErrors().sort(Comparator.comparingLong(UserImportError::getLine));
+
+		log.info("Imported [{}] users with [{}] rows skipped", response.getImported(), response.getErrors().size());
+		return response;
+	}
+
+	/**
+	 * Imports a chunk of rows by line number.
+	 *
+	 * @param chunk
+	 * @param rowReader
+	 * @param response
+	 */
+	private void importChunk(Map<Long, String> chunk, ObjectReader rowReader, UserImportResponse response) {
+		Map<String, UserImportRow> rows = new LinkedHashMap<>();
+
+		// parse and validate each row, keeping the first row of each email
+		for(Map.Entry<Long, String> entry : chunk.entrySet()) {
+			try
+			{
+				UserRequest request = rowReader.readValue(entry.getValue());
+				validator.validate(request);
+
+				if(rows.putIfAbsent(User.normalizeEmail(request.getEmail()), new UserImportRow(entry.getKey(), request)) != null)
+					throw ValidationException.of("email", "inUse");
+			}
+			catch(JsonProcessingException e)
+			{
+				response.addError(entry.getKey(), ValidationException.of("invalid"));
+			}
+			catch(ValidationException e)
+			{
+				response.addError(entry.getKey(), e);
+			}
+		}
+
+		// skip the emails already in use with a single query
+		Set<String> emailsInUse = rows.isEmpty() ? Set.of() : userRepository.findNormalizedEmails(rows.keySet());
+
+		for(String email : emailsInUse)
+			response.addError(rows.remove(email).getLine(), ValidationException.of("email", "inUse"));
+
+		if(rows.isEmpty())
+			return;
+
+		// hash the passwords in parallel
+		List<UserImportRow> validRows = new ArrayList<>(rows.values());
+		List<String> passwords = passwordEncoder.encodeAll(validRows.stream().map(row -> row.getRequest().getPassword()).collect(Collectors.toList()));
+
+		for(int i = 0; i < validRows.size(); i++)
+			validRows.get(i).setPassword(passwords.get(i));
+
+		try
+		{
+			insertUsers(validRows);
+			response.addImported(validRows.size());
+		}
+		catch(DataIntegrityViolationException e)
+		{
+			// an email was taken concurrently, so insert the rows one at a time to find it
+			log.debug("Retrying chunk of [{}] users individually", validRows.size());
+
+			for(UserImportRow row : validRows) {
+				try
+				{
+					insertUsers(List.of(row));
+					response.addImported(1);
+				}
+				catch(DataIntegrityViolationException ex)
+				{
+					response.addError(row.getLine(), ValidationException.of("email", "inUse"));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Inserts a user for each row in a single transaction.
+	 *
+	 * @param rows
+	 */
+	@Transactional
+	void insertUsers(List<UserImportRow> rows) {
+		log.debug("Inserting [{}] users", rows.size());
+		Instant now = Instant.now();
+		List<User> users = new ArrayList<>(rows.size());
+
+		for(UserImportRow row : rows) {
+			User user = new User();
+			user.setEmail(row.getRequest().getEmail());
+			user.setPassword(row.getPassword());
+			user.setPasswordDate(now);
+			user.setVerifyToken(UuidGenerator.SECURE_RANDOM.generate());
+			user.setResetToken(UuidGenerator.SECURE_RANDOM.generate());
+			user.setAuthority(UserAuthority.ROLE_USER);
+			user.setEnabled(true);
+			user.setVerified(false);
+			users.add(user);
+		}
+
+		userRepository.insertAll(users);
+	}
+
+	/**
+	 * UserImportRow
+	 *
+	 * A valid row and its hashed password.
+	 */
+	@Data
+	static class UserImportRow {
+
+		// the line number of the row
+		private final long line;
+
+		// the request of the row
+		private final UserRequest request;
+
+		// the hashed password
+		private String password;
+
+	}
+
+}
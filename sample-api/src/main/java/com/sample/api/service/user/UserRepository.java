@@ -1,6 +1,11 @@
 package com.sample.api.service.user;
 
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 import javax.persistence.EntityNotFoundException;
@@ -9,6 +14,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Repository;
 
+import com.querydsl.core.types.Projections;
 import com.querydsl.jpa.JPQLQuery;
 import com.sample.api.service.EntityRepository;
 
@@ -26,15 +32,126 @@ interface UserRepository extends EntityRepository<User> {
 	final Logger log = LoggerFactory.getLogger(UserRepository.class);
 
 	/**
-	 * Finds a user by email.
+	 * Finds a user by email, ignoring case.
+	 * The user is always read from the database rather than the second level cache, since this is the login lookup.
+	 *
+	 * Users left unnormalized by the backfill, since their email only differs by case from another user's, are found by their email until they are merged.
+	 * The user whose email matches exactly is preferred, so each of them can still log in.
 	 *
 	 * @param email
 	 * @return Optional<User>
 	 */
 	public default Optional<User> findByEmail(String email) {
 		log.debug("Finding user by email [{}]", email);
-		JPQLQuery<User> query = select().where(QUser.user.email.equalsIgnoreCase(email));
-		return Optional.ofNullable(query.fetchFirst());
+		QUser user = QUser.user;
+		User normalized = select().where(user.normalizedEmail.eq(User.normalizeEmail(email))).fetchOne();
+
+		if(normalized != null && normalized.getEmail().equals(email))
+			return Optional.of(normalized);
+
+		List<User> unnormalized = select().where(user.normalizedEmail.isNull(), user.email.equalsIgnoreCase(email)).fetch();
+
+		return unnormalized.stream()
+				.filter(legacy -> legacy.getEmail().equals(email))
+				.findFirst()
+				.or(() -> Optional.ofNullable(normalized))
+				.or(() -> unnormalized.stream().findFirst());
+	}
+
+	/**
+	 * Returns true if a user exists with the given email, ignoring case.
+	 *
+	 * @param email
+	 * @return boolean
+	 */
+	public default boolean existsByEmail(String email) {
+		log.debug("Checking user exists by email [{}]", email);
+		JPQLQuery<UUID> query = select(QUser.user.id).where(QUser.user.normalizedEmail.eq(User.normalizeEmail(email)));
+		return query.fetchFirst() != null;
+	}
+
+	/**
+	 * Returns the normalized emails that are already in use out of the given normalized emails.
+	 *
+	 * @param normalizedEmails
+	 * @return Set<String>
+	 */
+	public default Set<String> findNormalizedEmails(Collection<String> normalizedEmails) {
+		log.debug("Finding [{}] normalized emails in use", normalizedEmails.size());
+		JPQLQuery<String> query = select(QUser.user.normalizedEmail).where(QUser.user.normalizedEmail.in(normalizedEmails));
+		return new HashSet<>(query.fetch());
+	}
+
+	/**
+	 * Returns the ids of the users with an email at the given domain and the given enabled state.
+	 *
+	 * @param domain
+	 * @param enabled
+	 * @return List<UUID>
+	 */
+	public default List<UUID> findIdsByDomain(String domain, boolean enabled) {
+		log.debug("Finding user ids by domain [{}] and enabled [{}]", domain, enabled);
+		JPQLQuery<UUID> query = select(QUser.user.id).where(QUser.user.normalizedEmail.endsWith("@" + User.normalizeEmail(domain)), QUser.user.enabled.eq(enabled));
+		return query.fetch();
+	}
+
+	/**
+	 * Returns the ids of the unverified users created before the given time.
+	 *
+	 * @param createdBefore
+	 * @return List<UUID>
+	 */
+	public default List<UUID> findUnverifiedIds(Instant createdBefore) {
+		log.debug("Finding unverified user ids created before [{}]", createdBefore);
+		JPQLQuery<UUID> query = select(QUser.user.id).where(QUser.user.verified.isFalse(), QUser.user.timeCreated.before(createdBefore));
+		return query.fetch();
+	}
+
+	/**
+	 * Gets the credential of a user by id, without loading the user.
+	 *
+	 * @param id
+	 * @return UserCredential
+	 * @throws EntityNotFoundException
+	 */
+	public default UserCredential getCredential(UUID id) throws EntityNotFoundException {
+		log.debug("Get credential by id [{}]", id);
+		QUser user = QUser.user;
+		JPQLQuery<UserCredential> query = select(Projections.constructor(UserCredential.class,
+				user.id, user.authority, user.passwordDate, user.revokeDate, user.enabled))
+				.where(user.id.eq(id));
+
+		return Optional.ofNullable(query.fetchOne())
+				.orElseThrow(() -> new EntityNotFoundException(String.format("No user found by id [%s]", id)));
+	}
+
+	/**
+	 * Returns a query for user responses, without loading the users.
+	 *
+	 * @return JPQLQuery<UserResponse>
+	 */
+	public default JPQLQuery<UserResponse> selectResponse() {
+		QUser user = QUser.user;
+		return select(Projections.constructor(UserResponse.class,
+				user.id, user.version, user.timeCreated, user.timeModified, user.email, user.authority, user.verified));
+	}
+
+	/**
+	 * Finds a batch of users saved before the normalized email was introduced, ordered by id and starting after the given id.
+	 *
+	 * @param after the id of the last user of the previous batch, or null for the first batch
+	 * @param limit
+	 * @return List<User>
+	 */
+	public default List<User> findUnnormalized(UUID after, int limit) {
+		log.debug("Finding unnormalized users after [{}]", after);
+		QUser user = QUser.user;
+		JPQLQuery<User> query = select().where(user.normalizedEmail.isNull());
+
+		if(after != null)
+			query.where(user.id.gt(after));
+
+		return query.orderBy(user.id.asc()).limit(limit).fetch();
 	}
 
 	/**
@@ -25,7 +25,7 @@ public class UserRequestValidator extends Validator<UserRequest> {
 	protected void doValidation(UserRequest request, ValidationContext context) {
 		super.doValidation(request, context);
 
-		if(request.getEmail() != null && userRepository.findByEmail(request.getEmail()).isPresent()) {
+		if(request.getEmail() != null && userRepository.existsByEmail(request.getEmail())) {
 			context.addFieldError("email", "inUse");
 		}
 
@@ -1,5 +1,8 @@
 package com.sample.api.service.user;
 
+import java.time.Instant;
+import java.util.UUID;
+
 import com.sample.api.service.AbstractEntityResponse;
 
 import lombok.Getter;
@@ -25,4 +28,12 @@ public class UserResponse extends AbstractEntityResponse {
 		this.verified = user.isVerified();
 	}
 
+	// constructor for projections
+	public UserResponse(UUID id, Long version, Instant timeCreated, Instant timeModified, String email, UserAuthority authority, boolean verified) {
+		super(id, version, timeCreated, timeModified);
+		this.email = email;
+		this.authority = authority;
+		this.verified = verified;
+	}
+
 }
\ No newline at end of file
@@ -0,0 +1,122 @@
+package com.sample.api.service.user;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.querydsl.core.types.Projections;
+import com.sample.api.SampleApiProperties;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * UserRevocations
+ *
+ * In memory map of revocation epochs by user, so revoked tokens can be rejected on every request without querying the database.
+ * Tokens issued before the epoch of their user are invalid, in epoch seconds to match the token issued at date.
+ *
+ * An epoch only needs to be held for the token validation interval, since any token issued before it will have
+ * been validated against the database by then, where the user's revoke date rejects it.
+ * The map is rebuilt from the database at startup, before requests are accepted, and updated once a revoking transaction commits.
+ * Each instance only holds its own revocations, so other instances reject a revoked token once it is next validated against the database.
+ *
+ * @author Anthony DePalma
+ */
+@Slf4j
+@Component
+class UserRevocations implements SmartInitializingSingleton {
+
+	// revocation epochs by user id
+	private final Cache<UUID, Long> epochs;
+
+	// the token validation interval
+	private final Duration interval;
+
+	// the user repository
+	private final UserRepository userRepository;
+
+	// constructor
+	public UserRevocations(SampleApiProperties properties, UserRepository userRepository) {
+		this.userRepository = userRepository;
+		this.interval = Duration.ofSeconds(properties.getJwtValidateInterval());
+		this.epochs = Caffeine.newBuilder()
+				.expireAfterWrite(interval)
+				.build();
+	}
+
+	/**
+	 * Loads the revocations once every singleton is created, before the web server starts accepting requests.
+	 */
+	@Override
+	public void afterSingletonsInstantiated() {
+		load();
+	}
+
+	/**
+	 * Loads the revocations that are still within the validation interval.
+	 */
+	public void load() {
+		Instant cutoff = Instant.now().minus(interval);
+
+		QUser user = QUser.user;
+		userRepository.select(Projections.tuple(user.id, user.revokeDate))
+				.where(user.revokeDate.after(cutoff))
+				.fetch()
+				.forEach(tuple -> epochs.put(tuple.get(user.id), tuple.get(user.revokeDate).getEpochSecond()));
+
+		log.info("Loaded [{}] token revocations", epochs.estimatedSize());
+	}
+
+	/**
+	 * Returns true if a token issued at the given epoch second was revoked.
+	 *
+	 * @param userId
+	 * @param issuedAt
+	 * @return boolean
+	 */
+	public boolean isRevoked(UUID userId, long issuedAt) {
+		Long epoch = epochs.getIfPresent(userId);
+		return epoch != null && issuedAt < epoch;
+	}
+
+	/**
+	 * Records a revocation once the current transaction commits, or immediately if there is no transaction.
+	 *
+	 * @param userId
+	 * @param revokeDate
+	 */
+	public void revoke(UUID userId, Instant revokeDate) {
+		revokeAll(List.of(userId), revokeDate);
+	}
+
+	/**
+	 * Records the revocation of many users once the current transaction commits, or immediately if there is no transaction.
+	 *
+	 * @param userIds
+	 * @param revokeDate
+	 */
+	public void revokeAll(Collection<UUID> userIds, Instant revokeDate) {
+
+		if(!TransactionSynchronizationManager.isSynchronizationActive()) {
+			userIds.forEach(userId -> epochs.put(userId, revokeDate.getEpochSecond()));
+			return;
+		}
+
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCommit() {
+				userIds.forEach(userId -> epochs.put(userId, revokeDate.getEpochSecond()));
+			}
+		});
+	}
+
+}
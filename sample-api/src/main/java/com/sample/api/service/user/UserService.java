@@ -1,17 +1,31 @@
 package com.sample.api.service.user;
 
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 import javax.persistence.EntityNotFoundException;
 
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.google.common.collect.Lists;
+import com.querydsl.jpa.impl.JPAUpdateClause;
+import com.sample.api.SampleApiProperties;
+import com.sample.api.service.EntityCursor;
+import com.sample.api.service.EntityPage;
+import com.sample.api.service.RetryOnConflict;
+import com.sample.api.service.UuidGenerator;
 import com.sample.api.service.email.Email;
 import com.sample.api.service.email.EmailService;
 import com.sample.api.service.email.EmailTemplate;
@@ -29,11 +43,19 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 @Service
 @RequiredArgsConstructor
-public class UserService {
+public class UserService implements SmartInitializingSingleton {
+
+	// the number of users in each bulk statement
+	private static final int BULK_SIZE = 1000;
+
+	// the number of conflicting batches after which the email backfill is left to the next startup
+	private static final int MAX_NORMALIZE_CONFLICTS = 10;
 
 	// properties
+	private final SampleApiProperties properties;
 	private final EmailService emailService;
 	private final UserRepository userRepository;
+	private final UserRevocations userRevocations;
 	private final PasswordEncoder passwordEncoder;
 	private final Validator<Object> validator;
 	private final UserRequestValidator userRequestValidator;
@@ -49,6 +71,118 @@ public class UserService {
 		return userRepository.getById(id);
 	}
 
+	/**
+	 * Gets the credential of a user by id from the database.
+	 * It is never cached, since a node local cache would keep accepting tokens after another instance revoked them.
+	 *
+	 * @param id
+	 * @return UserCredential
+	 * @throws EntityNotFoundException
+	 */
+	public UserCredential getCredential(UUID id) throws EntityNotFoundException {
+		return userRepository.getCredential(id);
+	}
+
+	/**
+	 * Returns true if a token issued at the given epoch second was revoked.
+	 * This is checked in memory on every request, so it never queries the database.
+	 *
+	 * @param id
+	 * @param issuedAt
+	 * @return boolean
+	 */
+	public boolean isRevoked(UUID id, long issuedAt) {
+		return userRevocations.isRevoked(id, issuedAt);
+	}
+
+	/**
+	 * Backfills the normalized email of existing users once the application is initialized, before it serves requests.
+	 */
+	@Override
+	public void afterSingletonsInstantiated() {
+		normalizeEmails();
+	}
+
+	/**
+	 * Backfills the normalized email of users saved before it was introduced, in batches.
+	 * The normalized email is unique, so a user whose email only differs by case from another user's is reported and left to be merged rather than failing the backfill.
+	 * Such a user is still found by its email, see UserRepository.findByEmail.
+	 *
+	 * Every instance runs the backfill at startup, so a batch that conflicts with another instance is read again without the users it normalized.
+	 */
+	public void normalizeEmails() {
+		List<UUID> duplicates = new ArrayList<>();
+		UUID after = null;
+		int count = 0;
+		int conflicts = 0;
+
+		while(true) {
+			List<UUID> batchDuplicates = new ArrayList<>();
+			List<UUID> batch;
+
+			try
+			{
+				batch = normalizeBatch(after, batchDuplicates);
+			}
+			catch(OptimisticLockingFailureException | DataIntegrityViolationException e)
+			{
+				if(++conflicts > MAX_NORMALIZE_CONFLICTS) {
+					log.warn("Stopped normalizing emails after [{}] conflicts with other instances, the remaining users are normalized on the next startup", conflicts);
+					break;
+				}
+
+				log.debug("Normalizing emails after [{}] conflicted with another instance", after, e);
+				continue;
+			}
+
+			if(batch.isEmpty())
+				break;
+
+			duplicates.addAll(batchDuplicates);
+			count += batch.size();
+			after = batch.get(batch.size() - 1);
+		}
+
+		if(count > duplicates.size())
+			log.info("Normalized the email of [{}] users", count - duplicates.size());
+
+		if(!duplicates.isEmpty())
+			log.warn("Skipped normalizing the email of [{}] users whose email only differs by case from another user's, which must be merged {}", duplicates.size(), duplicates);
+	}
+
+	/**
+	 * Normalizes the email of a batch of users, adding the users whose normalized email is taken to the duplicates, and returns the ids of the batch.
+	 *
+	 * @param after the id of the last user of the previous batch, or null for the first batch
+	 * @param duplicates
+	 * @return List<UUID>
+	 */
+	@Transactional
+	List<UUID> normalizeBatch(UUID after, List<UUID> duplicates) {
+		List<User> users = userRepository.findUnnormalized(after, BULK_SIZE);
+
+		if(users.isEmpty())
+			return List.of();
+
+		Set<String> taken = userRepository.findNormalizedEmails(users.stream()
+				.map(user -> User.normalizeEmail(user.getEmail()))
+				.collect(Collectors.toList()));
+
+		List<UUID> ids = new ArrayList<>();
+
+		for(User user : users) {
+			ids.add(user.getId());
+
+			// the first user of an email keeps it, whether normalized earlier or in this batch
+			if(taken.add(User.normalizeEmail(user.getEmail())))
+				user.setEmail(user.getEmail());
+			else
+				duplicates.add(user.getId());
+		}
+
+		return ids;
+	}
+
 	/**
 	 * Creates a user with the given authority.
 	 *
@@ -68,8 +202,8 @@ public class UserService {
 		user.setEmail(request.getEmail());
 		user.setPassword(passwordEncoder.encode(request.getPassword()));
 		user.setPasswordDate(Instant.now());
-		user.setVerifyToken(UUID.randomUUID());
-		user.setResetToken(UUID.randomUUID());
+		user.setVerifyToken(UuidGenerator.SECURE_RANDOM.generate());
+		user.setResetToken(UuidGenerator.SECURE_RANDOM.generate());
 		user.setAuthority(authority);
 		user.setEnabled(true);
 		user.setVerified(false);
@@ -79,6 +213,7 @@ public class UserService {
 	/**
 	 * Authenticates a user by email and password.
 	 * Returns a user if authentication was successful, or throws a ValidationException otherwise.
+	 * Password hashes that are out of date are upgraded transparently on a successful authentication.
 	 *
 	 * @param email
 	 * @param password
@@ -102,14 +237,44 @@ public class UserService {
 			throw ValidationException.of("notEnabled");
 		}
 
+		// upgrade hashes produced by an old encoder or strength now that the raw password is known
+		if(passwordEncoder.upgradeEncoding(optionalUser.get().getPassword())) {
+			return rehashPassword(optionalUser.get(), password);
+		}
+
 		return optionalUser.get();
 	}
 
+	/**
+	 * Rehashes a user's password with the current encoder.
+	 * The password date is not changed, so existing tokens remain valid.
+	 * The upgrade is skipped if the user was modified concurrently, and retried on the next authentication.
+	 *
+	 * @param user
+	 * @param password
+	 * @return User
+	 */
+	private User rehashPassword(User user, String password) {
+		log.debug("Rehashing password for user [{}]", user.getId());
+		user.setPassword(passwordEncoder.encode(password));
+
+		try
+		{
+			return userRepository.save(user);
+		}
+		catch(OptimisticLockingFailureException e)
+		{
+			log.debug("Skipped rehashing password for modified user [{}]", user.getId());
+			return userRepository.getById(user.getId());
+		}
+	}
+
 	/**
 	 * Sends a verification email to the given user.
 	 *
 	 * @param userId
 	 */
+	@RetryOnConflict
 	@Transactional
 	public void sendVerifyEmail(UUID userId) {
 		log.debug("Sending verify email for user [{}]", userId);
@@ -119,7 +284,7 @@ public class UserService {
 			throw ValidationException.of("verified");
 
 		// update email token
-		user.setVerifyToken(UUID.randomUUID());
+		user.setVerifyToken(UuidGenerator.SECURE_RANDOM.generate());
 		user = saveUser(user);
 
 		// send the email
@@ -144,7 +309,7 @@ public class UserService {
 
 		// verify the user
 		User user = userRepository.getByVerifyToken(request.getToken());
-		user.setVerifyToken(UUID.randomUUID());
+		user.setVerifyToken(UuidGenerator.SECURE_RANDOM.generate());
 		user.setVerified(true);
 		return saveUser(user);
 	}
@@ -156,6 +321,7 @@ public class UserService {
 	 * @param request
 	 * @return User
 	 */
+	@RetryOnConflict
 	@Transactional
 	public User updateEmail(UUID userId, UserEmailRequest request) {
 		log.debug("Updating email for user [{}]", userId);
@@ -166,7 +332,7 @@ public class UserService {
 		// update the user
 		User user = userRepository.getById(userId);
 		user.setEmail(request.getEmail());
-		user.setVerifyToken(UUID.randomUUID());
+		user.setVerifyToken(UuidGenerator.SECURE_RANDOM.generate());
 		user.setVerified(false);
 		return saveUser(user);
 	}
@@ -176,13 +342,14 @@ public class UserService {
 	 *
 	 * @param userId
 	 */
+	@RetryOnConflict
 	@Transactional
 	public void sendResetEmail(UUID userId) {
 		log.debug("Sending reset email for user [{}]", userId);
 		User user = userRepository.getById(userId);
 
 		// update reset token
-		user.setResetToken(UUID.randomUUID());
+		user.setResetToken(UuidGenerator.SECURE_RANDOM.generate());
 		user = saveUser(user);
 
 		// send the email
@@ -208,7 +375,8 @@ public class UserService {
 		User user = userRepository.getByResetToken(request.getToken());
 		user.setPassword(passwordEncoder.encode(request.getPassword()));
 		user.setPasswordDate(Instant.now());
-		user.setResetToken(UUID.randomUUID());
+		user.setResetToken(UuidGenerator.SECURE_RANDOM.generate());
+		revokeTokens(user);
 		return saveUser(user);
 	}
 
@@ -230,17 +398,147 @@ public class UserService {
 		User user = userRepository.getById(userId);
 		user.setPassword(passwordEncoder.encode(request.getPassword()));
 		user.setPasswordDate(Instant.now());
+		revokeTokens(user);
 		return saveUser(user);
 	}
 
 	/**
-	 * Returns a list of all users.
+	 * Enables or disables a user.
 	 *
-	 * @return List<User>
+	 * @param userId
+	 * @param enabled
+	 * @return User
+	 */
+	@RetryOnConflict
+	@Transactional
+	public User updateEnabled(UUID userId, boolean enabled) {
+		log.debug("Updating enabled [{}] for user [{}]", enabled, userId);
+
+		// update the user
+		User user = userRepository.getById(userId);
+		user.setEnabled(enabled);
+
+		if(!enabled)
+			revokeTokens(user);
+
+		return saveUser(user);
+	}
+
+	/**
+	 * Revokes all tokens issued to a user so far.
+	 *
+	 * @param userId
+	 * @return User
+	 */
+	@RetryOnConflict
+	@Transactional
+	public User revokeTokens(UUID userId) {
+		log.debug("Revoking tokens for user [{}]", userId);
+
+		// update the user
+		User user = userRepository.getById(userId);
+		revokeTokens(user);
+		return saveUser(user);
+	}
+
+	/**
+	 * Enables or disables every user with an email at the given domain, using bulk updates rather than loading each user.
+	 * Disabled users have their tokens revoked as when disabling a single user.
+	 *
+	 * @param domain
+	 * @param enabled
+	 * @return long the number of users updated
+	 */
+	@Transactional
+	public long updateEnabledByDomain(String domain, boolean enabled) {
+		log.debug("Updating enabled [{}] for domain [{}]", enabled, domain);
+
+		if(domain == null || domain.isBlank())
+			throw ValidationException.of("domain", "notNull");
+
+		// find the users to update, which are needed to revoke their tokens
+		List<UUID> userIds = userRepository.findIdsByDomain(domain, !enabled);
+		QUser user = QUser.user;
+		String suffix = "@" + User.normalizeEmail(domain);
+
+		Instant now = Instant.now();
+		long count = 0;
+
+		for(List<UUID> partition : Lists.partition(userIds, BULK_SIZE)) {
+			JPAUpdateClause update = userRepository.update().set(user.enabled, enabled);
+
+			if(!enabled)
+				update.set(user.revokeDate, now);
+
+			// repeat the selection predicates so users changed since they were found are left alone
+			count += update.where(user.id.in(partition), user.normalizedEmail.endsWith(suffix), user.enabled.eq(!enabled)).execute();
+		}
+
+		if(!enabled)
+			userRevocations.revokeAll(userIds, now);
+
+		return count;
+	}
+
+	/**
+	 * Deletes every unverified user created before the given time, using bulk deletes rather than loading each user.
+	 * Tokens issued to the deleted users are revoked.
+	 *
+	 * @param createdBefore
+	 * @return long the number of users deleted
+	 */
+	@Transactional
+	public long deleteUnverified(Instant createdBefore) {
+		log.debug("Deleting unverified users created before [{}]", createdBefore);
+
+		// find the users to delete, which are needed to revoke their tokens
+		List<UUID> userIds = userRepository.findUnverifiedIds(createdBefore);
+		QUser user = QUser.user;
+
+		long count = 0;
+
+		// repeat the selection predicates so users verified since they were found are kept
+		for(List<UUID> partition : Lists.partition(userIds, BULK_SIZE))
+			count += userRepository.delete().where(user.id.in(partition), user.verified.isFalse(), user.timeCreated.before(createdBefore)).execute();
+
+		userRevocations.revokeAll(userIds, Instant.now());
+		return count;
+	}
+
+	/**
+	 * Returns a page of users in the order they were created, starting after the given cursor.
+	 * The page size defaults to and is limited by the configured page sizes.
+	 *
+	 * @param cursor
+	 * @param size
+	 * @return EntityPage<UserResponse>
+	 */
+	@Transactional(readOnly = true)
+	public EntityPage<UserResponse> findUsers(String cursor, Integer size) {
+		log.debug("Finding users after cursor [{}]", cursor);
+		int pageSize = size == null ? properties.getPageSize() : Math.max(1, Math.min(size, properties.getPageSizeMax()));
+		return userRepository.findPage(userRepository.selectResponse(), cursor, pageSize, EntityCursor::new);
+	}
+
+	/**
+	 * Passes every user to the consumer as it is read from the database, without holding all users in memory.
+	 *
+	 * @param consumer
+	 */
+	@Transactional(readOnly = true)
+	public void streamUsers(Consumer<UserResponse> consumer) {
+		log.debug("Streaming all users");
+		userRepository.iterate(userRepository.selectResponse(), consumer);
+	}
+
+	/**
+	 * Sets the revoke date of a user, and records the revocation in memory once the transaction commits.
+	 *
+	 * @param user
 	 */
-	public List<User> findUsers() {
-		log.debug("Finding all users");
-		return userRepository.select().fetch();
+	private void revokeTokens(User user) {
+		user.setRevokeDate(Instant.now());
+		userRevocations.revoke(user.getId(), user.getRevokeDate());
 	}
 
 	/**
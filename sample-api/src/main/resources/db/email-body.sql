@@ -0,0 +1,22 @@
+-- Alters a schema created before email bodies were stored separately, and must run before the application is upgraded.
+-- Hibernate only creates the schema of new databases, and the application moves the existing bodies once started, so this only changes the schema.
+-- Written for H2, where PostgreSQL uses uuid, bytea and text in place of binary, blob and clob.
+
+create table email_body (
+	id binary not null,
+	time_created timestamp,
+	time_modified timestamp,
+	version bigint,
+	compressed_length bigint not null,
+	content blob,
+	hash varchar(255),
+	length bigint not null,
+	primary key (id)
+);
+
+alter table email_body add constraint uk_email_body_hash unique (hash);
+
+-- new emails reference their body, and leave the old column empty
+alter table email alter column text set null;
+alter table email add column body_id binary;
+alter table email add constraint fk_email_body foreign key (body_id) references email_body;
@@ -2,18 +2,26 @@ package com.sample.api;
 
 import java.util.Map;
 
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
 import org.springframework.jdbc.core.JdbcTemplate;
 
 @SpringBootTest
+@ActiveProfiles("test")
 public class SampleApiTest {
 
 	@Autowired
 	private JdbcTemplate jdbcTemplate;
 
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
 	@BeforeEach
 	public void truncateDatabase() {
 		jdbcTemplate.execute("SET REFERENTIAL_INTEGRITY FALSE");
@@ -22,6 +30,9 @@ public class SampleApiTest {
 			jdbcTemplate.execute("TRUNCATE TABLE " + map.get("TABLE_NAME"));
 
 		jdbcTemplate.execute("SET REFERENTIAL_INTEGRITY TRUE");
+
+		// truncating bypasses hibernate, so the second level cache must be cleared as well
+		entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions();
 	}
 
 	@Test
@@ -0,0 +1,136 @@
+package com.sample.api.jdbc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * ReplicaRoutingDataSourceTest
+ *
+ * @author Anthony DePalma
+ */
+public class ReplicaRoutingDataSourceTest {
+
+	// the target databases
+	private DataSource primary;
+	private DataSource replica;
+
+	@BeforeEach
+	public void createDatabases() {
+		primary = createDatabase("primary");
+		replica = createDatabase("replica");
+	}
+
+	@Test
+	public void routeByTransaction() {
+		DataSource dataSource = createRoutingDataSource(replica, 0, new SimpleMeterRegistry());
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+		TransactionTemplate transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+
+		// work outside of a transaction uses the primary
+		assertEquals("primary", queryDatabase(jdbcTemplate));
+
+		// read only transactions use the replica
+		transactionTemplate.setReadOnly(true);
+		assertEquals("replica", transactionTemplate.execute(status -> queryDatabase(jdbcTemplate)));
+
+		// read write transactions use the primary
+		transactionTemplate.setReadOnly(false);
+		assertEquals("primary", transactionTemplate.execute(status -> queryDatabase(jdbcTemplate)));
+	}
+
+	@Test
+	public void routeToPrimaryAfterWrite() throws Exception {
+		DataSource dataSource = createRoutingDataSource(replica, 60000, new SimpleMeterRegistry());
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+		TransactionTemplate writeTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+		TransactionTemplate readTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+		readTemplate.setReadOnly(true);
+
+		assertEquals("replica", readTemplate.execute(status -> queryDatabase(jdbcTemplate)));
+
+		// reads stay on the primary within the lag of a write on the same thread
+		writeTemplate.execute(status -> jdbcTemplate.update("UPDATE site SET name = name"));
+		assertEquals("primary", readTemplate.execute(status -> queryDatabase(jdbcTemplate)));
+
+		// reads on other threads still use the replica
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try
+		{
+			assertEquals("replica", executor.submit(() -> readTemplate.execute(status -> queryDatabase(jdbcTemplate))).get());
+		}
+		finally
+		{
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void fallbackToPrimary() {
+		MeterRegistry registry = new SimpleMeterRegistry();
+		DataSource unavailable = new DriverManagerDataSource("jdbc:h2:mem:unavailable;IFEXISTS=TRUE");
+		DataSource dataSource = createRoutingDataSource(unavailable, 0, registry);
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+		TransactionTemplate transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+		transactionTemplate.setReadOnly(true);
+
+		assertEquals("primary", transactionTemplate.execute(status -> queryDatabase(jdbcTemplate)));
+		assertEquals(1, registry.counter("jdbc.replica.failures").count());
+
+		// the replica isn't retried until the retry delay passes
+		assertEquals("primary", transactionTemplate.execute(status -> queryDatabase(jdbcTemplate)));
+		assertEquals(1, registry.counter("jdbc.replica.failures").count());
+	}
+
+	/**
+	 * Creates a routing data source to the primary and the given replica.
+	 *
+	 * @param replica
+	 * @param lag
+	 * @param registry
+	 * @return DataSource
+	 */
+	private DataSource createRoutingDataSource(DataSource replica, long lag, MeterRegistry registry) {
+		return new LazyConnectionDataSourceProxy(new ReplicaRoutingDataSource(primary, replica, lag, 60000, registry));
+	}
+
+	/**
+	 * Creates an in memory database holding its own name.
+	 *
+	 * @param name
+	 * @return DataSource
+	 */
+	private static DataSource createDatabase(String name) {
+		DataSource dataSource = new DriverManagerDataSource(String.format("jdbc:h2:mem:%s;DB_CLOSE_DELAY=-1", name));
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+		jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS site (name VARCHAR(16))");
+		jdbcTemplate.execute("DELETE FROM site");
+		jdbcTemplate.update("INSERT INTO site (name) VALUES (?)", name);
+		return dataSource;
+	}
+
+	/**
+	 * Returns the name of the database a query was routed to.
+	 *
+	 * @param jdbcTemplate
+	 * @return String
+	 */
+	private static String queryDatabase(JdbcTemplate jdbcTemplate) {
+		return jdbcTemplate.queryForObject("SELECT name FROM site", String.class);
+	}
+
+}
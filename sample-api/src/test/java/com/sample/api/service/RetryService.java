@@ -0,0 +1,49 @@
+package com.sample.api.service;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * RetryService
+ *
+ * @author Anthony DePalma
+ */
+@Service
+public class RetryService {
+
+	// the number of attempts and transactions
+	public final AtomicInteger attempts = new AtomicInteger();
+	public final AtomicInteger transactions = new AtomicInteger();
+
+	@RetryOnConflict(backoff = 1)
+	@Transactional
+	public void conflict(int conflicts) {
+		attempts.incrementAndGet();
+
+		if(TransactionSynchronizationManager.isActualTransactionActive())
+			transactions.incrementAndGet();
+
+		if(attempts.get() <= conflicts)
+			throw new OptimisticLockingFailureException("conflict");
+	}
+
+	@Transactional
+	public void outerTransaction(int conflicts) {
+		conflict(conflicts);
+	}
+
+	public void selfInvoked(int conflicts) {
+		selfInvokedConflict(conflicts);
+	}
+
+	@RetryOnConflict(backoff = 1)
+	private void selfInvokedConflict(int conflicts) {
+		if(attempts.incrementAndGet() <= conflicts)
+			throw new OptimisticLockingFailureException("conflict");
+	}
+
+}
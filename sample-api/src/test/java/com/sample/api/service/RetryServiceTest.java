@@ -0,0 +1,75 @@
+package com.sample.api.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import com.sample.api.SampleApiTest;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * RetryServiceTest
+ *
+ * @author Anthony DePalma
+ */
+public class RetryServiceTest extends SampleApiTest {
+
+	@Autowired
+	private RetryService retryService;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@BeforeEach
+	public void resetAttempts() {
+		retryService.attempts.set(0);
+		retryService.transactions.set(0);
+	}
+
+	@Test
+	public void retry() {
+		double recovered = count("recovered");
+		retryService.conflict(2);
+
+		// each attempt runs in its own transaction
+		assertEquals(3, retryService.attempts.get());
+		assertEquals(3, retryService.transactions.get());
+		assertEquals(recovered + 1, count("recovered"));
+	}
+
+	@Test
+	public void exhausted() {
+		double exhausted = count("exhausted");
+		assertThrows(OptimisticLockingFailureException.class, () -> retryService.conflict(3));
+		assertEquals(3, retryService.attempts.get());
+		assertEquals(exhausted + 1, count("exhausted"));
+	}
+
+	@Test
+	public void outerTransaction() {
+		assertThrows(OptimisticLockingFailureException.class, () -> retryService.outerTransaction(1));
+		assertEquals(1, retryService.attempts.get());
+	}
+
+	@Test
+	public void selfInvoked() {
+		retryService.selfInvoked(2);
+		assertEquals(3, retryService.attempts.get());
+	}
+
+	/**
+	 * Returns the count of conflict retries with the given result.
+	 *
+	 * @param result
+	 * @return double
+	 */
+	private double count(String result) {
+		return meterRegistry.counter("service.conflict.retries", "method", "RetryService.conflict", "result", result).count();
+	}
+
+}
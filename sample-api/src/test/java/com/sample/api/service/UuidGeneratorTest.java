@@ -0,0 +1,57 @@
+package com.sample.api.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+import com.sample.api.service.user.User;
+
+/**
+ * UuidGeneratorTest
+ *
+ * @author Anthony DePalma
+ */
+public class UuidGeneratorTest {
+
+	@Test
+	public void timeOrdered() throws Exception {
+		long before = System.currentTimeMillis();
+		UUID first = UuidGenerator.TIME_ORDERED.generate();
+		Thread.sleep(2);
+		UUID second = UuidGenerator.TIME_ORDERED.generate();
+
+		assertEquals(7, first.version());
+		assertEquals(2, first.variant());
+
+		// the leading bits hold the creation millis, so later ids sort after earlier ones
+		long millis = first.getMostSignificantBits() >>> 16;
+		assertTrue(millis >= before && millis <= System.currentTimeMillis());
+		assertTrue(first.compareTo(second) < 0);
+	}
+
+	@Test
+	public void entityIds() {
+		// entity ids are time ordered
+		assertEquals(7, new User().getId().version());
+	}
+
+	@Test
+	public void secureRandom() {
+		Set<UUID> uuids = new HashSet<>();
+
+		for(int i = 0; i < 1000; i++) {
+			UUID uuid = UuidGenerator.SECURE_RANDOM.generate();
+			assertEquals(4, uuid.version());
+			assertEquals(2, uuid.variant());
+			uuids.add(uuid);
+		}
+
+		assertEquals(1000, uuids.size());
+	}
+
+}
@@ -1,5 +1,6 @@
 package com.sample.api.service.auth;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -9,8 +10,10 @@ import java.util.UUID;
 import org.junit.jupiter.api.Test;
 
 import com.sample.api.SampleApiTest;
+import com.sample.api.service.JsonMapper;
 import com.sample.api.service.user.User;
 import com.sample.api.service.user.UserAuthority;
+import com.sample.api.service.user.UserCredential;
 
 /**
  * AuthClaimTest
@@ -72,4 +75,51 @@ public class AuthClaimTest extends SampleApiTest {
 		assertFalse(claim.isMatch(user));
 	}
 
+	@Test
+	public void isMatchCredential() {
+		User user = new User();
+		user.setPassword("password");
+		user.setPasswordDate(Instant.now());
+		user.setAuthority(UserAuthority.ROLE_USER);
+
+		AuthClaim claim = new AuthClaim(user, false);
+		assertTrue(claim.isMatch(new UserCredential(user)));
+
+		user.setPasswordDate(Instant.now().plusSeconds(10));
+		assertFalse(claim.isMatch(new UserCredential(user)));
+	}
+
+	@Test
+	public void encode() {
+		User user = new User();
+		user.setPasswordDate(Instant.now());
+		user.setAuthority(UserAuthority.ROLE_ADMIN);
+
+		AuthClaim claim = new AuthClaim(user, true);
+		String encoded = AuthClaimCodec.encode(claim);
+		AuthClaim decoded = AuthClaimCodec.decode(encoded);
+
+		assertEquals(claim.getUserId(), decoded.getUserId());
+		assertEquals(claim.getAuthority(), decoded.getAuthority());
+		assertEquals(claim.getPasswordDate(), decoded.getPasswordDate());
+		assertEquals(claim.isLongExpiration(), decoded.isLongExpiration());
+		assertTrue(encoded.length() <= 31);
+
+		// the claim is written as the encoded string
+		assertEquals('"' + encoded + '"', JsonMapper.toJson(claim));
+	}
+
+	@Test
+	public void decodeLegacy() {
+		UUID userId = UUID.randomUUID();
+		String json = String.format("{\"uid\":\"%s\",\"ath\":\"ROLE_USER\",\"pdt\":1625097600,\"lex\":true}", userId);
+
+		AuthClaim claim = JsonMapper.fromJson(json, AuthClaim.class);
+
+		assertEquals(userId, claim.getUserId());
+		assertEquals(UserAuthority.ROLE_USER, claim.getAuthority());
+		assertEquals(1625097600L, claim.getPasswordDate());
+		assertTrue(claim.isLongExpiration());
+	}
+
 }
@@ -0,0 +1,90 @@
+package com.sample.api.service.auth;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import com.google.common.net.HttpHeaders;
+import com.sample.api.SampleApiTest;
+import com.sample.api.service.user.UserAuthority;
+import com.sample.api.service.user.UserRequest;
+import com.sample.api.service.user.UserService;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * AuthFilterTest
+ *
+ * @author Anthony DePalma
+ */
+public class AuthFilterTest extends SampleApiTest {
+
+	@Autowired
+	private AuthFilter authFilter;
+
+	@Autowired
+	private AuthService authService;
+
+	@Autowired
+	private UserService userService;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@AfterEach
+	public void clearContext() {
+		SecurityContextHolder.clearContext();
+	}
+
+	@Test
+	public void skipRenewal() throws Exception {
+		String token = createToken("filter@email.com");
+		double skipped = meterRegistry.counter("auth.token.renewals", "result", "skipped").count();
+
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.addHeader(HttpHeaders.AUTHORIZATION, "Bearer " + token);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		authFilter.doFilter(request, response, new MockFilterChain());
+
+		// a fresh token is accepted without issuing a new one
+		assertEquals(200, response.getStatus());
+		assertNotNull(SecurityContextHolder.getContext().getAuthentication());
+		assertNull(response.getHeader(HttpHeaders.AUTHORIZATION));
+		assertEquals(skipped + 1, meterRegistry.counter("auth.token.renewals", "result", "skipped").count());
+	}
+
+	@Test
+	public void invalidToken() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.addHeader(HttpHeaders.AUTHORIZATION, "Bearer invalid");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		authFilter.doFilter(request, response, new MockFilterChain());
+
+		assertEquals(401, response.getStatus());
+		assertNull(SecurityContextHolder.getContext().getAuthentication());
+	}
+
+	/**
+	 * Creates a user and returns a token for it.
+	 *
+	 * @param email
+	 * @return String
+	 */
+	private String createToken(String email) {
+		userService.createUser(new UserRequest(email, "password"), UserAuthority.ROLE_USER);
+
+		AuthRequest authRequest = new AuthRequest();
+		authRequest.setUsername(email);
+		authRequest.setPassword("password");
+		return authService.getToken(authRequest, "127.0.0.1");
+	}
+
+}
@@ -0,0 +1,80 @@
+package com.sample.api.service.auth;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Base64;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.sample.api.SampleApiProperties;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jws;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureException;
+
+/**
+ * AuthKeyringTest
+ *
+ * @author Anthony DePalma
+ */
+public class AuthKeyringTest {
+
+	// secrets
+	private static final String OLD_SECRET = "m4f7jEsJu+y2LI9BlZ0Gg4O9c/GVZQrjhl6ePPy8c3U=";
+	private static final String NEW_SECRET = "q0K5mLd7sZ2vJQ8xW1bN4cR6tY9uE3aH5gF2kP7oI1s=";
+
+	@Test
+	public void signWithKeyId() {
+		AuthKeyring keyring = new AuthKeyring(createProperties("k2", NEW_SECRET, Map.of("k1", OLD_SECRET)));
+		Jws<Claims> jws = keyring.parse(keyring.builder().setSubject("subject").compact());
+
+		assertEquals("k2", jws.getHeader().getKeyId());
+		assertEquals("subject", jws.getBody().getSubject());
+	}
+
+	@Test
+	public void verifyRotatedKey() {
+		AuthKeyring oldKeyring = new AuthKeyring(createProperties("k1", OLD_SECRET, Map.of()));
+		AuthKeyring newKeyring = new AuthKeyring(createProperties("k2", NEW_SECRET, Map.of("k1", OLD_SECRET)));
+
+		// tokens signed with the retired key are still accepted
+		String token = oldKeyring.builder().setSubject("subject").compact();
+		assertEquals("subject", newKeyring.parse(token).getBody().getSubject());
+
+		// tokens signed with the new key are rejected where the key is unknown
+		String newToken = newKeyring.builder().setSubject("subject").compact();
+		assertThrows(SignatureException.class, () -> oldKeyring.parse(newToken));
+	}
+
+	@Test
+	public void verifyWithoutKeyId() {
+		AuthKeyring keyring = new AuthKeyring(createProperties("k1", OLD_SECRET, Map.of()));
+		String token = Jwts.builder()
+				.setSubject("subject")
+				.signWith(Keys.hmacShaKeyFor(Base64.getDecoder().decode(OLD_SECRET)))
+				.compact();
+
+		assertEquals("subject", keyring.parse(token).getBody().getSubject());
+	}
+
+	/**
+	 * Creates properties with the given keys.
+	 *
+	 * @param keyId
+	 * @param secret
+	 * @param secrets
+	 * @return SampleApiProperties
+	 */
+	private SampleApiProperties createProperties(String keyId, String secret, Map<String, String> secrets) {
+		SampleApiProperties properties = new SampleApiProperties();
+		properties.setJwtKeyId(keyId);
+		properties.setJwtSecret(secret);
+		properties.setJwtSecrets(secrets);
+		return properties;
+	}
+
+}
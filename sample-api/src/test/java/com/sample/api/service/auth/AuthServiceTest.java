@@ -1,8 +1,11 @@
 package com.sample.api.service.auth;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.time.Instant;
+import java.util.Date;
 import java.util.Optional;
 
 import org.junit.jupiter.api.Test;
@@ -27,6 +30,9 @@ public class AuthServiceTest extends SampleApiTest {
 	@Autowired
 	private AuthService authService;
 
+	@Autowired
+	private AuthKeyring keyring;
+
 	@Autowired
 	private UserService userService;
 
@@ -45,7 +51,7 @@ public class AuthServiceTest extends SampleApiTest {
 		authRequest.setPassword(userRequest.getPassword());
 		authRequest.setLongExpire(false);
 
-		String token = authService.getToken(authRequest);
+		String token = authService.getToken(authRequest, "127.0.0.1");
 		Jws<Claims> jws = authService.parseToken(token);
 		AuthClaim claim = jws.getBody().get(AuthClaim.KEY, AuthClaim.class);
 
@@ -58,4 +64,66 @@ public class AuthServiceTest extends SampleApiTest {
 		assertTrue(valid.isEmpty());
 	}
 
+	@Test
+	public void isRenewable() {
+
+		// create a valid user
+		UserRequest userRequest = new UserRequest("renew@email.com", "password");
+		User user = userService.createUser(userRequest, UserAuthority.ROLE_USER);
+		AuthClaim claim = new AuthClaim(user, false);
+
+		// a freshly signed token is passed through unless it was validated
+		Instant now = Instant.now();
+		Jws<Claims> fresh = authService.parseToken(keyring.builder()
+				.setIssuedAt(Date.from(now))
+				.setExpiration(Date.from(now.plusSeconds(1800)))
+				.claim(AuthClaim.KEY, claim)
+				.compact());
+
+		assertFalse(authService.isRenewable(fresh, false));
+		assertTrue(authService.isRenewable(fresh, true));
+
+		// a token past the renewal threshold is renewed
+		Jws<Claims> aged = authService.parseToken(keyring.builder()
+				.setIssuedAt(Date.from(now.minusSeconds(1700)))
+				.setExpiration(Date.from(now.plusSeconds(100)))
+				.claim(AuthClaim.KEY, claim)
+				.compact());
+
+		assertTrue(authService.isRenewable(aged, false));
+	}
+
+	@Test
+	public void revokeTokens() {
+
+		// create a valid user
+		UserRequest userRequest = new UserRequest("revoke@email.com", "password");
+		User user = userService.createUser(userRequest, UserAuthority.ROLE_USER);
+		AuthClaim claim = new AuthClaim(user, false);
+
+		// a token issued before the revocation within the validation interval
+		Instant now = Instant.now();
+		Jws<Claims> recent = authService.parseToken(keyring.builder()
+				.setIssuedAt(Date.from(now.minusSeconds(10)))
+				.setExpiration(Date.from(now.plusSeconds(1790)))
+				.claim(AuthClaim.KEY, claim)
+				.compact());
+
+		// a token issued before the revocation outside the validation interval
+		Jws<Claims> old = authService.parseToken(keyring.builder()
+				.setIssuedAt(Date.from(now.minusSeconds(7200)))
+				.setExpiration(Date.from(now.plusSeconds(100)))
+				.claim(AuthClaim.KEY, claim)
+				.compact());
+
+		assertTrue(authService.validateToken(recent).isEmpty());
+		assertEquals(Optional.of(Boolean.TRUE), authService.validateToken(old));
+
+		// both tokens are rejected once revoked, without waiting for the validation interval
+		userService.revokeTokens(user.getId());
+
+		assertEquals(Optional.of(Boolean.FALSE), authService.validateToken(recent));
+		assertEquals(Optional.of(Boolean.FALSE), authService.validateToken(old));
+	}
+
 }
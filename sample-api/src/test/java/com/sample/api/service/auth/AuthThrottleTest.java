@@ -0,0 +1,71 @@
+package com.sample.api.service.auth;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+import com.sample.api.SampleApiProperties;
+import com.sample.api.service.ThrottleException;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * AuthThrottleTest
+ *
+ * @author Anthony DePalma
+ */
+public class AuthThrottleTest {
+
+	@Test
+	public void throttleEmail() {
+		MeterRegistry registry = new SimpleMeterRegistry();
+		AuthThrottle throttle = new AuthThrottle(createProperties(3, 100), new AuthMetrics(registry));
+
+		// the burst is allowed, using any case of the email
+		throttle.checkAttempt("email@email.com", "1.1.1.1");
+		throttle.checkAttempt("EMAIL@email.com", "2.2.2.2");
+		throttle.checkAttempt("email@email.com", "3.3.3.3");
+
+		assertThrows(ThrottleException.class, () -> throttle.checkAttempt("Email@Email.com", "4.4.4.4"));
+		assertEquals(1, registry.counter("auth.login.throttled", "key", "email").count());
+
+		// other emails are unaffected
+		assertDoesNotThrow(() -> throttle.checkAttempt("other@email.com", "4.4.4.4"));
+	}
+
+	@Test
+	public void throttleAddress() {
+		MeterRegistry registry = new SimpleMeterRegistry();
+		AuthThrottle throttle = new AuthThrottle(createProperties(100, 2), new AuthMetrics(registry));
+
+		throttle.checkAttempt("one@email.com", "1.1.1.1");
+		throttle.checkAttempt("two@email.com", "1.1.1.1");
+
+		assertThrows(ThrottleException.class, () -> throttle.checkAttempt("three@email.com", "1.1.1.1"));
+		assertEquals(1, registry.counter("auth.login.throttled", "key", "address").count());
+
+		// other addresses are unaffected
+		assertDoesNotThrow(() -> throttle.checkAttempt("three@email.com", "2.2.2.2"));
+	}
+
+	/**
+	 * Creates properties with the given bursts and a rate of one attempt per minute.
+	 *
+	 * @param emailBurst
+	 * @param addressBurst
+	 * @return SampleApiProperties
+	 */
+	private SampleApiProperties createProperties(int emailBurst, int addressBurst) {
+		SampleApiProperties properties = new SampleApiProperties();
+		properties.setLoginEmailRate(1);
+		properties.setLoginEmailBurst(emailBurst);
+		properties.setLoginAddressRate(1);
+		properties.setLoginAddressBurst(addressBurst);
+		properties.setLoginThrottleSize(100);
+		return properties;
+	}
+
+}
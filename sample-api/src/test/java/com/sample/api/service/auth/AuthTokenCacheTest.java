@@ -0,0 +1,101 @@
+package com.sample.api.service.auth;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Instant;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import com.sample.api.SampleApiTest;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jws;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.security.SignatureException;
+
+/**
+ * AuthTokenCacheTest
+ *
+ * @author Anthony DePalma
+ */
+public class AuthTokenCacheTest extends SampleApiTest {
+
+	@Autowired
+	private AuthKeyring keyring;
+
+	@Autowired
+	private AuthTokenCache tokenCache;
+
+	@Test
+	public void isWellFormed() {
+		assertTrue(AuthTokenCache.isWellFormed("aGVhZGVy.Ym9keQ.c2ln-_"));
+		assertFalse(AuthTokenCache.isWellFormed(null));
+		assertFalse(AuthTokenCache.isWellFormed(""));
+		assertFalse(AuthTokenCache.isWellFormed("aGVhZGVy.Ym9keQ"));
+		assertFalse(AuthTokenCache.isWellFormed("aGVhZGVy.Ym9keQ."));
+		assertFalse(AuthTokenCache.isWellFormed("aGVhZGVy..c2ln"));
+		assertFalse(AuthTokenCache.isWellFormed("aGVh ZGVy.Ym9keQ.c2ln"));
+		assertFalse(AuthTokenCache.isWellFormed("aGVhZGVy.Ym9keQ.c2ln.c2ln"));
+	}
+
+	@Test
+	public void cacheVerifiedToken() {
+		String token = keyring.builder()
+				.setSubject("cached")
+				.setExpiration(Date.from(Instant.now().plusSeconds(60)))
+				.compact();
+
+		AtomicInteger parses = new AtomicInteger();
+		Jws<Claims> jws = tokenCache.parse(token, (t) -> {
+			parses.incrementAndGet();
+			return keyring.parse(t);
+		});
+
+		assertSame(jws, tokenCache.parse(token, (t) -> {
+			parses.incrementAndGet();
+			return keyring.parse(t);
+		}));
+		assertEquals(1, parses.get());
+	}
+
+	@Test
+	public void rejectInvalidToken() {
+		String token = keyring.builder()
+				.setSubject("rejected")
+				.setExpiration(Date.from(Instant.now().plusSeconds(60)))
+				.compact();
+
+		// tamper with the first character of the signature
+		int signature = token.lastIndexOf('.') + 1;
+		char replacement = token.charAt(signature) == 'A' ? 'B' : 'A';
+		String tampered = token.substring(0, signature) + replacement + token.substring(signature + 1);
+
+		AtomicInteger parses = new AtomicInteger();
+		assertThrows(SignatureException.class, () -> tokenCache.parse(tampered, (t) -> {
+			parses.incrementAndGet();
+			return keyring.parse(t);
+		}));
+
+		// the replayed token is rejected without parsing
+		assertThrows(JwtException.class, () -> tokenCache.parse(tampered, (t) -> {
+			parses.incrementAndGet();
+			return keyring.parse(t);
+		}));
+		assertEquals(1, parses.get());
+
+		// garbage is rejected without parsing
+		assertThrows(JwtException.class, () -> tokenCache.parse("garbage", (t) -> {
+			parses.incrementAndGet();
+			return keyring.parse(t);
+		}));
+		assertEquals(1, parses.get());
+	}
+
+}
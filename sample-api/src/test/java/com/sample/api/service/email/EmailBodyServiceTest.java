@@ -0,0 +1,126 @@
+package com.sample.api.service.email;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+
+import org.hibernate.Hibernate;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.sample.api.SampleApiTest;
+
+/**
+ * EmailBodyServiceTest
+ *
+ * @author Anthony DePalma
+ */
+public class EmailBodyServiceTest extends SampleApiTest {
+
+	@Autowired
+	private EmailService emailService;
+
+	@Autowired
+	private EmailBodyService emailBodyService;
+
+	@Autowired
+	private EmailRepository emailRepository;
+
+	@Autowired
+	private EmailBodyRepository emailBodyRepository;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Test
+	public void compress() {
+		String text = "<p>Bitte bestätigen Sie Ihre E-Mail-Adresse ✓</p>".repeat(100);
+		EmailBody body = new EmailBody(text);
+
+		assertEquals(text.getBytes(StandardCharsets.UTF_8).length, body.getLength());
+		assertTrue(body.getCompressedLength() < body.getLength() / 10);
+	}
+
+	@Test
+	public void storeBody() {
+		Email first = emailService.sendEmail(createEmail(bodyText("first")));
+		Email second = emailService.sendEmail(createEmail(bodyText("first")));
+		Email third = emailService.sendEmail(createEmail(bodyText("third")));
+
+		// equal bodies are stored once
+		assertEquals(2, emailBodyRepository.count());
+		assertEquals(first.getBody().getId(), second.getBody().getId());
+		assertNotEquals(first.getBody().getId(), third.getBody().getId());
+
+		// the body is only loaded when read
+		Email email = emailRepository.getById(first.getId());
+		assertFalse(Hibernate.isInitialized(email.getBody()));
+
+		String text = transactionTemplate.execute(status -> emailRepository.getById(first.getId()).getText());
+		assertEquals(bodyText("first"), text);
+	}
+
+	@Test
+	public void storeBodyRollback() {
+		transactionTemplate.executeWithoutResult(status -> {
+			emailService.sendEmail(createEmail(bodyText("rollback")));
+			status.setRollbackOnly();
+		});
+
+		// the body is stored in the email's transaction, so no body is left behind
+		assertEquals(0, emailRepository.count());
+		assertEquals(0, emailBodyRepository.count());
+	}
+
+	@Test
+	public void migrateBodies() {
+		emailRepository.save(createLegacyEmail(bodyText("first")));
+		emailRepository.save(createLegacyEmail(bodyText("first")));
+		emailRepository.save(createLegacyEmail(bodyText("second")));
+		emailService.sendEmail(createEmail(bodyText("second")));
+
+		EmailBodyReport before = emailBodyService.getReport();
+		assertEquals(3, before.getLegacyEmails());
+		assertEquals(1, before.getEmails());
+
+		emailBodyService.migrateBodies();
+
+		EmailBodyReport report = emailBodyService.getReport();
+		assertEquals(0, report.getLegacyEmails());
+		assertEquals(4, report.getEmails());
+		assertEquals(2, report.getBodies());
+		assertTrue(report.getStoredBytes() < report.getTextBytes());
+		assertTrue(report.getSavings() > 0.5);
+
+		for(Email email : emailRepository.findAll()) {
+			assertNull(email.getLegacyText());
+			String text = transactionTemplate.execute(status -> emailRepository.getById(email.getId()).getText());
+			assertTrue(text.equals(bodyText("first")) || text.equals(bodyText("second")));
+		}
+	}
+
+	private String bodyText(String name) {
+		return ("<p>Please verify your email address " + name + "</p>").repeat(20);
+	}
+
+	private Email createEmail(String text) {
+		Email email = new Email();
+		email.setToAddress("test@test.com");
+		email.setText(text);
+		return email;
+	}
+
+	private Email createLegacyEmail(String text) {
+		Email email = new Email();
+		email.setToAddress("test@test.com");
+		email.setStatus(EmailStatus.SENT);
+		email.setLegacyText(text);
+		return email;
+	}
+
+}
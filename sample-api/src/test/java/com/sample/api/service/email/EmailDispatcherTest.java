@@ -0,0 +1,132 @@
+package com.sample.api.service.email;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.sample.api.SampleApiProperties;
+import com.sample.api.SampleApiTest;
+
+/**
+ * EmailDispatcherTest
+ *
+ * The scheduled dispatcher is switched off by the test profile, so every batch is dispatched by the test itself.
+ *
+ * @author Anthony DePalma
+ */
+public class EmailDispatcherTest extends SampleApiTest {
+
+	@Autowired
+	private EmailService emailService;
+
+	@Autowired
+	private EmailDispatcher emailDispatcher;
+
+	@Autowired
+	private EmailRepository emailRepository;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Autowired
+	private SampleApiProperties properties;
+
+	private int maxAttempts;
+
+	@BeforeEach
+	public void saveProperties() {
+		maxAttempts = properties.getEmailMaxAttempts();
+	}
+
+	@AfterEach
+	public void restoreProperties() {
+		properties.setEmailMaxAttempts(maxAttempts);
+	}
+
+	@Test
+	public void outbox() {
+		Email email = emailService.sendEmail(createEmail("outbox@test.com"));
+		assertEquals(EmailStatus.PENDING, email.getStatus());
+
+		emailDispatcher.dispatch();
+		email = emailRepository.getById(email.getId());
+		assertEquals(EmailStatus.SENT, email.getStatus());
+		assertEquals(1, email.getAttempts());
+		assertNull(email.getClaimedBy());
+		assertNull(email.getClaimedUntil());
+	}
+
+	@Test
+	public void rollback() {
+		transactionTemplate.executeWithoutResult(status -> {
+			emailService.sendEmail(createEmail("rollback@test.com"));
+			status.setRollbackOnly();
+		});
+
+		// the email was never committed, so there is nothing to send
+		assertEquals(0, emailRepository.count());
+		assertEquals(0, emailDispatcher.dispatch());
+	}
+
+	@Test
+	public void retry() {
+		Email email = emailService.sendEmail(createEmail("<invalid"));
+
+		// a failed email is rescheduled after a backoff
+		emailDispatcher.dispatch();
+		email = emailRepository.getById(email.getId());
+		assertEquals(EmailStatus.PENDING, email.getStatus());
+		assertEquals(1, email.getAttempts());
+		assertNotNull(email.getLastError());
+		assertTrue(email.getTimeScheduled().isAfter(Instant.now()));
+
+		// and abandoned on its last attempt
+		properties.setEmailMaxAttempts(2);
+		transactionTemplate.executeWithoutResult(status -> emailRepository.update()
+				.set(QEmail.email.timeScheduled, Instant.now())
+				.execute());
+
+		emailDispatcher.dispatch();
+		email = emailRepository.getById(email.getId());
+		assertEquals(EmailStatus.FAILED, email.getStatus());
+		assertEquals(2, email.getAttempts());
+	}
+
+	@Test
+	public void claim() {
+		emailService.sendEmail(createEmail("first@test.com"));
+		emailService.sendEmail(createEmail("second@test.com"));
+
+		List<Email> claimed = emailDispatcher.claim("first");
+		assertEquals(2, claimed.size());
+		claimed.forEach(email -> assertEquals(EmailStatus.SENDING, email.getStatus()));
+
+		// claimed emails are skipped by other batches until the lease expires
+		assertEquals(0, emailDispatcher.claim("second").size());
+
+		transactionTemplate.executeWithoutResult(status -> emailRepository.update()
+				.set(QEmail.email.claimedUntil, Instant.now().minusSeconds(1))
+				.execute());
+
+		assertEquals(2, emailDispatcher.claim("third").size());
+	}
+
+	private Email createEmail(String toAddress) {
+		Email email = new Email();
+		email.setToAddress(toAddress);
+		email.setSubject("Subject");
+		email.setText("Text");
+		return email;
+	}
+
+}
@@ -0,0 +1,62 @@
+package com.sample.api.service.email;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.sample.api.service.user.User;
+
+/**
+ * EmailHeaderTemplateTest
+ *
+ * Compiled headers must render exactly like the string substitutor.
+ *
+ * @author Anthony DePalma
+ */
+public class EmailHeaderTemplateTest {
+
+	@Test
+	public void render() {
+		User user = new User();
+		user.setEmail("test@test.com");
+
+		User variableUser = new User();
+		variableUser.setEmail("${names}");
+
+		List<Map<String, ?>> contexts = List.of(
+				Map.of("user", user),
+				Map.of("user", new User()),
+				Map.of("user", variableUser, "names", new String[] { "first", "second" }),
+				Map.of("nested", Map.of("user", user)));
+
+		List<String> values = List.of(
+				"Plain text",
+				"",
+				"${user.email}",
+				"Welcome ${user.email}, from ${user.email}",
+				"${user.missing} and ${missing.email}",
+				"${nested.user.email}",
+				"${names}",
+				"$${user.email} escaped",
+				"${user.email:-default}",
+				"${user.${name}}",
+				"${}",
+				"${user.email",
+				"trailing $ and } braces");
+
+		for(Map<String, ?> context : contexts) {
+			for(String value : values)
+				assertEquals(EmailHeaderTemplate.substitute(value, context), EmailHeaderTemplate.compile(value).render(context), value);
+		}
+	}
+
+	@Test
+	public void renderNull() {
+		assertNull(EmailHeaderTemplate.compile(null).render(Map.of()));
+	}
+
+}
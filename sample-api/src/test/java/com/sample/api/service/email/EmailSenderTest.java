@@ -0,0 +1,108 @@
+package com.sample.api.service.email;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import javax.mail.internet.MimeMessage;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import com.icegreen.greenmail.util.GreenMail;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import com.sample.api.SampleApiTest;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * EmailSenderTest
+ *
+ * Sends messages to an embedded mail server.
+ *
+ * @author Anthony DePalma
+ */
+public class EmailSenderTest extends SampleApiTest {
+
+	private GreenMail greenMail;
+	private MeterRegistry registry;
+	private EmailSender emailSender;
+
+	@BeforeEach
+	public void startMailServer() {
+		greenMail = new GreenMail(ServerSetupTest.SMTP);
+		greenMail.start();
+
+		JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+		mailSender.setHost("localhost");
+		mailSender.setPort(ServerSetupTest.SMTP.getPort());
+
+		registry = new SimpleMeterRegistry();
+		emailSender = new EmailSender(mailSender, 10, 200, 100, registry);
+	}
+
+	@AfterEach
+	public void stopMailServer() {
+		emailSender.shutdown();
+		greenMail.stop();
+	}
+
+	@Test
+	public void sendAll() throws Exception {
+		assertEquals(0, emailSender.sendAll(createMessages(25)).size());
+		assertEquals(25, greenMail.getReceivedMessages().length);
+
+		// batches of ten are sent through three connections
+		DistributionSummary connectionMessages = registry.get("email.send.connection.messages").summary();
+		assertEquals(3, connectionMessages.count());
+		assertEquals(25, connectionMessages.totalAmount());
+	}
+
+	@Test
+	public void send() throws Exception {
+		List<CompletableFuture<Void>> futures = new ArrayList<>();
+
+		for(MimeMessage message : createMessages(10))
+			futures.add(emailSender.send(message));
+
+		CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+		assertEquals(10, greenMail.getReceivedMessages().length);
+
+		// queued messages linger until the batch is full, and share one connection
+		assertEquals(1, registry.get("email.send.connection.messages").summary().count());
+	}
+
+	@Test
+	public void connectionFailure() throws Exception {
+		List<MimeMessage> messages = createMessages(3);
+		greenMail.stop();
+
+		assertEquals(3, emailSender.sendAll(messages).size());
+		assertEquals(3, registry.get("email.send.messages").tag("result", "failed").counter().count());
+		assertThrows(CompletionException.class, () -> emailSender.send(createMessages(1).get(0)).join());
+	}
+
+	private List<MimeMessage> createMessages(int count) throws Exception {
+		List<MimeMessage> messages = new ArrayList<>();
+
+		for(int i = 0; i < count; i++) {
+			Email email = new Email();
+			email.setToAddress("user" + i + "@test.com");
+			email.setFromAddress("sender@test.com");
+			email.setSubject("Subject " + i);
+			email.setText("Text " + i);
+			messages.add(emailSender.createMimeMessage(email));
+		}
+
+		return messages;
+	}
+
+}
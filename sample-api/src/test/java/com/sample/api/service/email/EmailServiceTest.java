@@ -1,11 +1,22 @@
 package com.sample.api.service.email;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import com.sample.api.SampleApiTest;
 import com.sample.api.service.user.User;
@@ -20,6 +31,12 @@ public class EmailServiceTest extends SampleApiTest {
 	@Autowired
 	private EmailService emailService;
 
+	@Autowired
+	private EmailRepository emailRepository;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
 	@Test
 	public void nestedSubstituion() throws InterruptedException {
 		User user = new User();
@@ -34,4 +51,76 @@ public class EmailServiceTest extends SampleApiTest {
 		assertEquals("${user.email}", email.getSubject());
 	}
 
+	@Test
+	public void sendEmailOnce() {
+		assertTrue(emailService.sendEmailOnce(createEmail("1", "first@test.com,second@test.com")).isPresent());
+
+		// recipients match regardless of case and order
+		assertFalse(emailService.sendEmailOnce(createEmail("1", "Second@test.com, FIRST@test.com")).isPresent());
+
+		// correlation ids and recipients match exactly rather than by substring
+		assertTrue(emailService.sendEmailOnce(createEmail("12", "first@test.com,second@test.com")).isPresent());
+		assertTrue(emailService.sendEmailOnce(createEmail("1", "first@test.com")).isPresent());
+		assertEquals(3, emailRepository.count());
+	}
+
+	@Test
+	public void sendEmailOnceRollback() {
+		transactionTemplate.executeWithoutResult(status -> {
+			assertTrue(emailService.sendEmailOnce(createEmail("1", "test@test.com")).isPresent());
+
+			// a rejected email leaves the caller's transaction usable
+			assertFalse(emailService.sendEmailOnce(createEmail("1", "test@test.com")).isPresent());
+			assertTrue(emailService.sendEmailOnce(createEmail("2", "test@test.com")).isPresent());
+			assertEquals(2, emailRepository.count());
+			status.setRollbackOnly();
+		});
+
+		// nothing is queued for work that rolls back, so the email can still be sent
+		assertEquals(0, emailRepository.count());
+		assertTrue(emailService.sendEmailOnce(createEmail("1", "test@test.com")).isPresent());
+	}
+
+	@Test
+	public void sendEmailOnceConcurrently() throws Exception {
+		int threads = 4;
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		CountDownLatch latch = new CountDownLatch(1);
+		List<Future<Optional<Email>>> futures = new ArrayList<>();
+
+		try
+		{
+			for(int i = 0; i < threads; i++) {
+				Callable<Optional<Email>> task = () -> {
+					latch.await();
+					return emailService.sendEmailOnce(createEmail("1", "test@test.com"));
+				};
+
+				futures.add(executor.submit(task));
+			}
+
+			latch.countDown();
+			int sent = 0;
+
+			for(Future<Optional<Email>> future : futures)
+				sent += future.get().isPresent() ? 1 : 0;
+
+			assertEquals(1, sent);
+			assertEquals(1, emailRepository.count());
+		}
+		finally
+		{
+			executor.shutdown();
+		}
+	}
+
+	private Email createEmail(String correlationId, String toAddress) {
+		Email email = new Email();
+		email.setTemplate(EmailTemplate.VERIFY_USER);
+		email.setCorrelationId(correlationId);
+		email.setToAddress(toAddress);
+		email.setText("Text");
+		return email;
+	}
+
 }
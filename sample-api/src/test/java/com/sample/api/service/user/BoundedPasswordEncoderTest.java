@@ -0,0 +1,117 @@
+package com.sample.api.service.user;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import com.sample.api.service.ThrottleException;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * BoundedPasswordEncoderTest
+ *
+ * @author Anthony DePalma
+ */
+public class BoundedPasswordEncoderTest {
+
+	@Test
+	public void encode() {
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(new BlockingPasswordEncoder(new CountDownLatch(0)), 1, 1, registry);
+
+		assertEquals("{encoded}password", encoder.encode("password"));
+		assertTrue(encoder.matches("password", "{encoded}password"));
+		assertEquals(1, registry.timer("password.hash", "operation", "encode").count());
+		assertEquals(1, registry.timer("password.hash", "operation", "match").count());
+		encoder.shutdown();
+	}
+
+	@Test
+	public void rejectWhenSaturated() throws Exception {
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		CountDownLatch latch = new CountDownLatch(1);
+		BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(new BlockingPasswordEncoder(latch), 1, 1, registry);
+
+		// occupy the only thread and the only queue slot
+		CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> encoder.encode("running"));
+		while(registry.get("password.active").gauge().value() < 1)
+			Thread.sleep(1);
+
+		CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> encoder.encode("queued"));
+		while(registry.get("password.queue.size").gauge().value() < 1)
+			Thread.sleep(1);
+
+		// further work is rejected immediately
+		assertThrows(ThrottleException.class, () -> encoder.encode("rejected"));
+		assertEquals(1, registry.counter("password.rejections").count());
+
+		latch.countDown();
+		assertEquals("{encoded}running", running.get());
+		assertEquals("{encoded}queued", queued.get());
+		encoder.shutdown();
+	}
+
+	@Test
+	public void encodeAll() {
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(new BlockingPasswordEncoder(new CountDownLatch(0)), 2, 4, registry);
+		List<String> passwords = IntStream.range(0, 100).mapToObj(i -> "password" + i).collect(Collectors.toList());
+
+		// passwords beyond the free half of the queue are hashed by the caller instead of being rejected
+		List<String> encoded = encoder.encodeAll(passwords);
+		assertEquals(100, encoded.size());
+
+		for(int i = 0; i < passwords.size(); i++)
+			assertEquals("{encoded}" + passwords.get(i), encoded.get(i));
+
+		assertEquals(100, registry.timer("password.hash", "operation", "encode").count());
+		assertEquals(0, registry.counter("password.rejections").count());
+		encoder.shutdown();
+	}
+
+	/**
+	 * BlockingPasswordEncoder
+	 *
+	 * Encoder that waits on a latch before encoding.
+	 */
+	private static class BlockingPasswordEncoder implements PasswordEncoder {
+
+		// the latch
+		private final CountDownLatch latch;
+
+		// constructor
+		public BlockingPasswordEncoder(CountDownLatch latch) {
+			this.latch = latch;
+		}
+
+		@Override
+		public String encode(CharSequence rawPassword) {
+			try
+			{
+				latch.await();
+				return "{encoded}" + rawPassword;
+			}
+			catch(InterruptedException e)
+			{
+				throw new IllegalStateException(e);
+			}
+		}
+
+		@Override
+		public boolean matches(CharSequence rawPassword, String encodedPassword) {
+			return encodedPassword.equals(encode(rawPassword));
+		}
+
+	}
+
+}
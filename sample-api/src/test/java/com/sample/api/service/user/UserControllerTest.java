@@ -0,0 +1,79 @@
+package com.sample.api.service.user;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import com.sample.api.SampleApiTest;
+import com.sample.api.jdbc.SqlCountFilter;
+
+import net.ttddyy.dsproxy.QueryCount;
+import net.ttddyy.dsproxy.QueryCountHolder;
+
+/**
+ * UserControllerTest
+ *
+ * Asserts the sql statement budgets of user requests.
+ *
+ * @author Anthony DePalma
+ */
+public class UserControllerTest extends SampleApiTest {
+
+	@Autowired
+	private WebApplicationContext context;
+
+	@Autowired
+	private FilterRegistrationBean<SqlCountFilter> sqlCountFilter;
+
+	@Autowired
+	private UserService userService;
+
+	// the mock mvc
+	private MockMvc mockMvc;
+
+	@BeforeEach
+	public void setupMockMvc() {
+		mockMvc = MockMvcBuilders.webAppContextSetup(context).addFilters(sqlCountFilter.getFilter()).build();
+	}
+
+	@Test
+	public void createUser() throws Exception {
+		MockHttpServletResponse response = mockMvc.perform(post("/api/user")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("{\"email\":\"budget@email.com\",\"password\":\"password\"}"))
+				.andExpect(status().isOk())
+				.andReturn()
+				.getResponse();
+
+		// checking the email and inserting the user
+		assertTrue(Integer.parseInt(response.getHeader(SqlCountFilter.STATEMENTS)) <= 3);
+		assertEquals("1", response.getHeader(SqlCountFilter.SELECTS));
+		assertEquals("1", response.getHeader(SqlCountFilter.INSERTS));
+		assertEquals("0", response.getHeader(SqlCountFilter.UPDATES));
+	}
+
+	@Test
+	public void getCredential() {
+		User user = userService.createUser(new UserRequest("credential@email.com", "password"), UserAuthority.ROLE_USER);
+
+		// the credential is a single projection query rather than loading the user
+		QueryCountHolder.clear();
+		userService.getCredential(user.getId());
+
+		QueryCount count = QueryCountHolder.getGrandTotal();
+		assertEquals(1, count.getTotal());
+		assertEquals(1, count.getSelect());
+	}
+
+}
@@ -0,0 +1,97 @@
+package com.sample.api.service.user;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import com.sample.api.SampleApiTest;
+import com.sample.api.validation.ValidationException;
+
+/**
+ * UserImportServiceTest
+ *
+ * @author Anthony DePalma
+ */
+public class UserImportServiceTest extends SampleApiTest {
+
+	@Autowired
+	private UserImportService userImportService;
+
+	@Autowired
+	private UserService userService;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private PasswordEncoder passwordEncoder;
+
+	@Test
+	public void importJson() throws Exception {
+		userService.createUser(new UserRequest("existing@email.com", "password"), UserAuthority.ROLE_USER);
+
+		String json = String.join("\n",
+				"{\"email\":\"first@email.com\",\"password\":\"password1\"}",
+				"{\"email\":\"second@email.com\",\"password\":\"password2\"}",
+				"",
+				"{\"email\":\"FIRST@email.com\",\"password\":\"password3\"}",
+				"{\"email\":\"existing@email.com\",\"password\":\"password4\"}",
+				"{\"email\":\"invalid\",\"password\":\"password5\"}",
+				"{\"email\":");
+
+		UserImportResponse response = userImportService.importJson(toStream(json));
+
+		// valid rows are imported while every other row is reported by line
+		assertEquals(2, response.getImported());
+		assertEquals(List.of(4L, 5L, 6L, 7L), response.getErrors().stream().map(UserImportError::getLine).collect(Collectors.toList()));
+		assertEquals("inUse", response.getErrors().get(0).getErrors().get(0).getError());
+		assertEquals("inUse", response.getErrors().get(1).getErrors().get(0).getError());
+		assertEquals("invalid", response.getErrors().get(3).getErrors().get(0).getError());
+
+		User user = userRepository.findByEmail("first@email.com").get();
+		assertTrue(passwordEncoder.matches("password1", user.getPassword()));
+		assertEquals(UserAuthority.ROLE_USER, user.getAuthority());
+		assertEquals(0L, user.getVersion());
+		assertTrue(userRepository.existsByEmail("second@email.com"));
+	}
+
+	@Test
+	public void importCsv() throws Exception {
+		String csv = String.join("\n",
+				"name,email,password",
+				"First,first@email.com,password1",
+				"\"Second, Jr\",second@email.com,\"pass,word2\"",
+				"Third,third@email.com");
+
+		UserImportResponse response = userImportService.importCsv(toStream(csv));
+
+		assertEquals(2, response.getImported());
+		assertEquals(1, response.getErrors().size());
+		assertEquals(4L, response.getErrors().get(0).getLine());
+		assertTrue(passwordEncoder.matches("pass,word2", userRepository.findByEmail("second@email.com").get().getPassword()));
+
+		// a header is required
+		assertThrows(ValidationException.class, () -> userImportService.importCsv(toStream("")));
+	}
+
+	/**
+	 * Returns a utf-8 stream of a string.
+	 *
+	 * @param value
+	 * @return InputStream
+	 */
+	private InputStream toStream(String value) {
+		return new ByteArrayInputStream(value.getBytes(StandardCharsets.UTF_8));
+	}
+
+}
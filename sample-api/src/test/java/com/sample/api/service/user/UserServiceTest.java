@@ -1,14 +1,38 @@
 package com.sample.api.service.user;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.EntityNotFoundException;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
 import com.sample.api.SampleApiTest;
+import com.sample.api.service.EntityPage;
+import com.sample.api.validation.ValidationException;
 
 /**
  * UserServiceTest
@@ -20,9 +44,18 @@ public class UserServiceTest extends SampleApiTest {
 	@Autowired
 	private UserService userService;
 
+	@Autowired
+	private UserRepository userRepository;
+
 	@Autowired
 	private PasswordEncoder passwordEncoder;
 
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
 	@Test
 	public void createUser() {
 
@@ -46,4 +79,194 @@ public class UserServiceTest extends SampleApiTest {
 		assertTrue(passwordEncoder.matches(userRequest.getPassword(), user.getPassword()));
 	}
 
+	@Test
+	public void findByEmail() {
+		User user = userService.createUser(new UserRequest("Find@Email.com", "password"), UserAuthority.ROLE_USER);
+		assertEquals("find@email.com", user.getNormalizedEmail());
+		assertEquals(user.getId(), userRepository.findByEmail("FIND@email.COM").get().getId());
+		assertTrue(userRepository.existsByEmail("find@EMAIL.com"));
+		assertFalse(userRepository.existsByEmail("other@email.com"));
+
+		// users saved before the normalized email existed are found by their email until they are backfilled
+		jdbcTemplate.update("UPDATE user SET normalized_email = NULL");
+		entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions();
+		assertEquals(user.getId(), userRepository.findByEmail("find@email.com").get().getId());
+
+		userService.normalizeEmails();
+		assertEquals("find@email.com", userRepository.getById(user.getId()).getNormalizedEmail());
+		assertEquals(user.getId(), userRepository.findByEmail("find@email.com").get().getId());
+	}
+
+	@Test
+	public void normalizeEmails() {
+		User user = userService.createUser(new UserRequest("first@email.com", "password"), UserAuthority.ROLE_USER);
+		User duplicate = userService.createUser(new UserRequest("second@email.com", "password"), UserAuthority.ROLE_USER);
+
+		// users saved before the normalized email existed may differ only by case
+		jdbcTemplate.update("UPDATE user SET normalized_email = NULL");
+		jdbcTemplate.update("UPDATE user SET email = 'FIRST@email.com' WHERE id = ?", duplicate.getId());
+		entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions();
+
+		// the first user keeps the email, and the duplicate is skipped rather than failing the backfill
+		userService.normalizeEmails();
+		assertEquals(user.getId(), userRepository.findByEmail("first@email.com").get().getId());
+		assertNull(userRepository.getById(duplicate.getId()).getNormalizedEmail());
+
+		// until they are merged, the duplicate is still found by its exact email and can log in
+		assertEquals(duplicate.getId(), userRepository.findByEmail("FIRST@email.com").get().getId());
+		assertEquals(duplicate.getId(), userService.authenticateUser("FIRST@email.com", "password").getId());
+		assertEquals(user.getId(), userService.authenticateUser("First@Email.com", "password").getId());
+	}
+
+	@Test
+	public void entityCache() {
+		User user = userService.createUser(new UserRequest("cache@email.com", "password"), UserAuthority.ROLE_USER);
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+
+		// lookups by id are served from the second level cache
+		userRepository.getById(user.getId());
+		assertEquals(0, statistics.getEntityLoadCount());
+		assertEquals(1, statistics.getSecondLevelCacheHitCount());
+
+		// logins read the database, so a change made by another instance is seen at once
+		jdbcTemplate.update("UPDATE user SET enabled = FALSE WHERE id = ?", user.getId());
+		assertFalse(userRepository.findByEmail("CACHE@email.com").get().isEnabled());
+		assertThrows(ValidationException.class, () -> userService.authenticateUser("cache@email.com", "password"));
+		jdbcTemplate.update("UPDATE user SET enabled = TRUE WHERE id = ?", user.getId());
+
+		// updates refresh the cached version, and stale copies are still rejected by the database
+		User updated = userService.updateEnabled(user.getId(), false);
+		assertEquals(updated.getVersion(), userRepository.getById(user.getId()).getVersion());
+		assertThrows(ObjectOptimisticLockingFailureException.class, () -> userRepository.save(user));
+	}
+
+	@Test
+	public void getCredential() {
+		User user = userService.createUser(new UserRequest("credential@email.com", "password"), UserAuthority.ROLE_USER);
+
+		UserCredential credential = userService.getCredential(user.getId());
+		assertEquals(user.getPasswordDate().getEpochSecond(), credential.getPasswordDate());
+		assertTrue(credential.isEnabled());
+
+		// the credential is read from the database, so it always reflects the latest change
+		userService.updateEnabled(user.getId(), false);
+		assertFalse(userService.getCredential(user.getId()).isEnabled());
+	}
+
+	@Test
+	public void revokeTokens() {
+		User user = userService.createUser(new UserRequest("revoke@email.com", "password"), UserAuthority.ROLE_USER);
+		long issuedAt = user.getTimeCreated().getEpochSecond() - 1;
+		assertFalse(userService.isRevoked(user.getId(), issuedAt));
+		assertEquals(0, userService.getCredential(user.getId()).getRevokeDate());
+
+		// revoking rejects earlier tokens in memory and in the credential
+		user = userService.revokeTokens(user.getId());
+		assertNotNull(user.getRevokeDate());
+		assertTrue(userService.isRevoked(user.getId(), issuedAt));
+		assertTrue(userService.getCredential(user.getId()).isRevoked(issuedAt));
+
+		// tokens issued afterwards are accepted
+		long reissuedAt = user.getRevokeDate().getEpochSecond();
+		assertFalse(userService.isRevoked(user.getId(), reissuedAt));
+		assertFalse(userService.getCredential(user.getId()).isRevoked(reissuedAt));
+	}
+
+	@Test
+	public void updateEnabledByDomain() {
+		User user = userService.createUser(new UserRequest("bulk@Domain.com", "password"), UserAuthority.ROLE_USER);
+		User other = userService.createUser(new UserRequest("bulk@other.com", "password"), UserAuthority.ROLE_USER);
+		long issuedAt = user.getTimeCreated().getEpochSecond() - 1;
+		assertTrue(userService.getCredential(user.getId()).isEnabled());
+
+		// a single statement updates the users, bumping the version and evicting the cached user and credential
+		assertEquals(1, userService.updateEnabledByDomain("DOMAIN.com", false));
+		User disabled = userRepository.getById(user.getId());
+		assertFalse(disabled.isEnabled());
+		assertNotNull(disabled.getRevokeDate());
+		assertEquals(user.getVersion() + 1, disabled.getVersion());
+		assertFalse(userService.getCredential(user.getId()).isEnabled());
+		assertTrue(userService.isRevoked(user.getId(), issuedAt));
+		assertTrue(userRepository.getById(other.getId()).isEnabled());
+
+		// users already in the requested state are skipped
+		assertEquals(0, userService.updateEnabledByDomain("domain.com", false));
+		assertEquals(1, userService.updateEnabledByDomain("domain.com", true));
+	}
+
+	@Test
+	public void deleteUnverified() {
+		User user = userService.createUser(new UserRequest("unverified@email.com", "password"), UserAuthority.ROLE_USER);
+		User verified = userService.createUser(new UserRequest("verified@email.com", "password"), UserAuthority.ROLE_USER);
+		UserVerifyRequest verifyRequest = new UserVerifyRequest();
+		verifyRequest.setToken(verified.getVerifyToken());
+		userService.verifyUser(verifyRequest);
+		userService.getCredential(user.getId());
+
+		// the database stores microseconds, so compare against the stored creation time
+		assertEquals(0, userService.deleteUnverified(user.getTimeCreated().truncatedTo(ChronoUnit.MICROS)));
+		assertEquals(1, userService.deleteUnverified(Instant.now().plusSeconds(1)));
+		assertTrue(userRepository.findById(user.getId()).isEmpty());
+		assertTrue(userRepository.findByEmail("unverified@email.com").isEmpty());
+		assertThrows(EntityNotFoundException.class, () -> userService.getCredential(user.getId()));
+		assertTrue(userRepository.findById(verified.getId()).isPresent());
+	}
+
+	@Test
+	public void findUsers() {
+		Set<UUID> ids = new HashSet<>();
+
+		for(int i = 0; i < 5; i++)
+			ids.add(userService.createUser(new UserRequest("page" + i + "@email.com", "password"), UserAuthority.ROLE_USER).getId());
+
+		// page through the users two at a time
+		EntityPage<UserResponse> first = userService.findUsers(null, 2);
+		EntityPage<UserResponse> second = userService.findUsers(first.getCursor(), 2);
+		EntityPage<UserResponse> third = userService.findUsers(second.getCursor(), 2);
+
+		assertEquals(2, first.getItems().size());
+		assertEquals(2, second.getItems().size());
+		assertEquals(1, third.getItems().size());
+		assertNull(third.getCursor());
+
+		Set<UUID> paged = new HashSet<>();
+		Stream.of(first, second, third).flatMap(page -> page.getItems().stream()).forEach(user -> paged.add(user.getId()));
+		assertEquals(ids, paged);
+
+		// invalid cursors are rejected, including cursors beyond the range of an instant
+		assertThrows(ValidationException.class, () -> userService.findUsers("invalid", 2));
+		String outOfRange = Base64.getUrlEncoder().withoutPadding().encodeToString(ByteBuffer.allocate(28).putLong(Long.MAX_VALUE).array());
+		assertThrows(ValidationException.class, () -> userService.findUsers(outOfRange, 2));
+	}
+
+	@Test
+	public void streamUsers() {
+		for(int i = 0; i < 3; i++)
+			userService.createUser(new UserRequest("stream" + i + "@email.com", "password"), UserAuthority.ROLE_USER);
+
+		List<String> emails = new ArrayList<>();
+		userService.streamUsers(user -> emails.add(user.getEmail()));
+		assertEquals(3, emails.size());
+	}
+
+	@Test
+	public void rehashPassword() {
+		User user = userService.createUser(new UserRequest("rehash@email.com", "password"), UserAuthority.ROLE_USER);
+		assertTrue(user.getPassword().startsWith("{bcrypt}"));
+		assertFalse(passwordEncoder.upgradeEncoding(user.getPassword()));
+
+		// store a legacy hash without an id prefix and with a low strength
+		user.setPassword(new BCryptPasswordEncoder(4).encode("password"));
+		user = userRepository.save(user);
+		assertTrue(passwordEncoder.upgradeEncoding(user.getPassword()));
+
+		// authenticating upgrades the hash without changing the password date
+		User authenticated = userService.authenticateUser("rehash@email.com", "password");
+		assertTrue(authenticated.getPassword().startsWith("{bcrypt}"));
+		assertFalse(passwordEncoder.upgradeEncoding(authenticated.getPassword()));
+		assertTrue(passwordEncoder.matches("password", authenticated.getPassword()));
+		assertEquals(user.getPasswordDate(), authenticated.getPasswordDate());
+	}
+
 }